@@ -0,0 +1,98 @@
+package grasp.problem.ridesharing;
+
+import grasp.framework.AbstractTSGRASP;
+import grasp.framework.AbstractTSGRASP.ConstructiveMethod;
+import grasp.framework.Solution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the evaluation of a constructed solution: full evaluations and
+ * the cost variations of the local search moves. None of them should allocate:
+ * under the allocation profiler the jmh task runs with, every gc.alloc.rate.norm
+ * is expected to stay at about 0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RideSharingEvaluatorBenchmark {
+
+    @Param({"P_N16", "A_N32", "A_N44"})
+    public Instance instance;
+
+    private RideSharingEvaluator evaluator;
+    private RideSharingSolution sol;
+    private Solution<Integer> plainSol;
+    private int insertedElem;
+    private int removedElem;
+    private int movedRider;
+    private int movedRiderDriver;
+
+    @Setup
+    public void setup() {
+        AbstractTSGRASP.verbose = false;
+        evaluator = new RideSharingEvaluator(instance);
+        RideSharingTSGRASP grasp = new RideSharingTSGRASP(0.15, 1, Duration.ofMinutes(5), evaluator, 10);
+        sol = (RideSharingSolution) grasp.constructiveHeuristic(ConstructiveMethod.STANDARD);
+
+        // Make sure there is a rider not served, so that insertions and exchanges are feasible
+        int unservedRider = 0;
+        while (unservedRider < evaluator.riders && sol.isServed(unservedRider)) {
+            unservedRider++;
+        }
+        if (unservedRider == evaluator.riders) {
+            unservedRider = sol.get(0) % evaluator.riders;
+            sol.unassign(unservedRider);
+        }
+
+        insertedElem = unservedRider;
+        removedElem = sol.get(sol.size() - 1);
+        movedRider = removedElem % evaluator.riders;
+        movedRiderDriver = removedElem / evaluator.riders;
+        plainSol = new Solution<>(sol);
+        evaluator.evaluate(sol);
+    }
+
+    @Benchmark
+    public double evaluateFromScratch() {
+        return evaluator.evaluate(plainSol);
+    }
+
+    @Benchmark
+    public double evaluateAfterMove() {
+        sol.unassign(movedRider);
+        sol.assign(movedRider, movedRiderDriver);
+        return evaluator.evaluate(sol);
+    }
+
+    @Benchmark
+    public double insertionCost() {
+        return evaluator.getInsertionDelta(insertedElem, sol);
+    }
+
+    @Benchmark
+    public double removalCost() {
+        return evaluator.getRemovalDelta(removedElem, sol);
+    }
+
+    @Benchmark
+    public double exchangeCost() {
+        return evaluator.getExchangeDelta(insertedElem, removedElem, sol);
+    }
+
+}
@@ -0,0 +1,120 @@
+package grasp.problem.ridesharing;
+
+import grasp.framework.AbstractTSGRASP;
+import grasp.framework.AbstractTSGRASP.ConstructiveMethod;
+import grasp.framework.AbstractTSGRASP.LocalSearchMethod;
+import grasp.framework.Solution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the Candidate List maintenance and of a full local search pass
+ * starting from a freshly constructed solution.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RideSharingTSGRASPBenchmark {
+
+    @State(Scope.Thread)
+    public static class CandidateListState {
+
+        @Param({"P_N16", "A_N32", "A_N44"})
+        public Instance instance;
+
+        private BenchmarkTSGRASP grasp;
+        private RideSharingSolution sol;
+        private int movedRider;
+        private int movedRiderDriver;
+
+        @Setup
+        public void setup() {
+            grasp = new BenchmarkTSGRASP(new RideSharingEvaluator(instance));
+            sol = (RideSharingSolution) grasp.constructiveHeuristic(ConstructiveMethod.STANDARD);
+            movedRider = sol.get(0) % sol.getRiders();
+            movedRiderDriver = sol.get(0) / sol.getRiders();
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class LocalSearchState {
+
+        @Param({"P_N16", "A_N32", "A_N44"})
+        public Instance instance;
+
+        @Param({"FIRST_IMPROVING", "BEST_IMPROVING", "TABU_SEARCH", "TABU_PROBABILISTIC_50_PERCENT", "REACTIVE_TABU_SEARCH"})
+        public LocalSearchMethod method;
+
+        private BenchmarkTSGRASP grasp;
+
+        @Setup(Level.Trial)
+        public void setupTrial() {
+            grasp = new BenchmarkTSGRASP(new RideSharingEvaluator(instance));
+        }
+
+        @Setup(Level.Invocation)
+        public void setupInvocation() {
+            grasp.constructiveHeuristic(ConstructiveMethod.STANDARD);
+            grasp.resetTabuList();
+        }
+
+    }
+
+    @Benchmark
+    public int updateCLAfterMove(CandidateListState state) {
+        state.sol.unassign(state.movedRider);
+        state.grasp.updateCL();
+        state.sol.assign(state.movedRider, state.movedRiderDriver);
+        state.grasp.updateCL();
+        return state.grasp.candidatesCount();
+    }
+
+    @Benchmark
+    public int updateCLFromScratch(CandidateListState state) {
+        state.grasp.makeCL();
+        state.grasp.updateCL();
+        return state.grasp.candidatesCount();
+    }
+
+    @Benchmark
+    public Solution<Integer> localSearch(LocalSearchState state) {
+        return state.grasp.localSearch(state.method);
+    }
+
+    /**
+     * GRASP exposing the state a benchmark needs to drive its phases separately.
+     */
+    static class BenchmarkTSGRASP extends RideSharingTSGRASP {
+
+        BenchmarkTSGRASP(RideSharingEvaluator evaluator) {
+            super(0.15, 1, Duration.ofMinutes(5), evaluator, 10);
+            AbstractTSGRASP.verbose = false;
+        }
+
+        void resetTabuList() {
+            TL = makeTL();
+        }
+
+        int candidatesCount() {
+            return CL.size();
+        }
+
+    }
+
+}
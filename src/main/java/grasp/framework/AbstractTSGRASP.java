@@ -3,9 +3,26 @@
  */
 package grasp.framework;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
-import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Abstract class for metaheuristic GRASP (Greedy Randomized Adaptive Search
@@ -23,15 +40,20 @@ public abstract class AbstractTSGRASP<E> {
 	 */
 	public static boolean verbose = true;
 
+	/**
+	 * the seed of the random number generators
+	 */
+	protected long seed = 0;
+
 	/**
 	 * a random number generator
 	 */
-	protected static Random rng = new Random(0);
+	protected Random rng = new Random(seed);
 
 	/**
 	 * a random number generator for alpha's in Reactive GRASP
 	 */
-	static Random alphaRng = new Random(0);
+	Random alphaRng = new Random(seed);
 
 	/**
 	 * the objective function being optimized
@@ -44,9 +66,23 @@ public abstract class AbstractTSGRASP<E> {
 	protected Double usedAlpha;
 
 	/**
-	 * array of alphas when Reactive GRASP applied
+	 * the distribution of the alphas when Reactive GRASP applied, created
+	 * for the constructive method {@link #alphasMethod} at its first
+	 * construction of a solve, and the index of the alpha used.
+	 */
+	protected AlphaDistribution alphas;
+	private ConstructiveMethod alphasMethod;
+	private int usedAlphaIndex;
+
+	/**
+	 * the number of iterations between two updates of the probabilities of
+	 * the alphas in the probability learning Reactive GRASP, the exponent
+	 * amplifying the differences of quality between them, and the number of
+	 * iterations run so far.
 	 */
-	protected double[] alphas;
+	private int reactiveUpdateInterval = 10;
+	private double reactiveAmplification = 10;
+	private int reactiveIterations;
 
     /**
 	 * the tabu tenure.
@@ -61,7 +97,7 @@ public abstract class AbstractTSGRASP<E> {
 	/**
 	 * the current solution cost
 	 */
-	protected Double cost;
+	protected double cost;
 
 	/**
 	 * the best solution
@@ -89,15 +125,89 @@ public abstract class AbstractTSGRASP<E> {
 	protected ArrayList<E> RCL;
 
     /**
-	 * the Tabu List of elements to enter the solution.
+	 * the Tabu List of the attributes of the moves recently made.
 	 */
-	protected ArrayDeque<E> TL;
+	protected TabuList TL;
 
 	/**
 	 * the max time to run the solver in seconds
 	 */
 	protected Duration maxExecutionTime;
 
+	/**
+	 * the instant (in {@link System#nanoTime()}) the running solve must stop
+	 * at, if a solve is running, and the number of {@link #shouldStop()}
+	 * calls between two reads of the clock.
+	 */
+	private boolean hasDeadline;
+	private long deadlineNanos;
+	private int deadlineCheckInterval = 16;
+	private int callsUntilDeadlineCheck;
+
+	/**
+	 * whether the running solve was cancelled, shared with its workers.
+	 */
+	private AtomicBoolean cancelled = new AtomicBoolean();
+
+	/**
+	 * the listener notified of every new incumbent solution, if any.
+	 */
+	private IncumbentListener<E> incumbentListener;
+
+	/**
+	 * the metrics of the solve, shared with its workers.
+	 */
+	protected SolverMetrics metrics = SolverMetrics.DISABLED;
+
+	/**
+	 * the candidates of the current constructive step and their insertion
+	 * costs, each one evaluated once per step.
+	 */
+	private final ArrayList<E> stepCandidates = new ArrayList<>();
+	private double[] stepCosts = new double[0];
+
+	/**
+	 * the insertion costs cached between constructive steps, indexed by
+	 * {@link #getCandidateIndex(Object)}, with the step they were valid at.
+	 */
+	private double[] cachedCosts;
+	private int[] cachedCostsSteps;
+	private int constructiveStep;
+
+	/**
+	 * the last candidate inserted by the constructive heuristic, or null at
+	 * the start of a construction.
+	 */
+	private E lastInserted;
+
+	/**
+	 * the path relinking run after each local search, the capacity of the
+	 * elite pool and the minimum distance of its members, and the pool of
+	 * the current solve.
+	 */
+	private RelinkingMethod relinkingMethod = RelinkingMethod.NONE;
+	private int eliteSize = 10;
+	private int minEliteDistance = 1;
+	private ElitePool<E> elitePool;
+
+	/**
+	 * the solution the next serial solve starts from, if any.
+	 */
+	private Solution<E> initialSol;
+
+	/**
+	 * the file the serial solves write their checkpoints to, if any, the time
+	 * between two checkpoints, and the instant (in {@link System#nanoTime()})
+	 * the running solve started at, shifted back by the time elapsed before
+	 * its checkpoint when resumed.
+	 */
+	private Path checkpointFile;
+	private Duration checkpointInterval;
+	private long startedNanos;
+
+	private static final int CHECKPOINT_MAGIC = 0x47525350;
+	private static final int CHECKPOINT_VERSION = 1;
+
 	/**
 	 * Creates the Candidate List, which is an Set of candidate elements
 	 * that can enter a solution.
@@ -117,13 +227,14 @@ public abstract class AbstractTSGRASP<E> {
 	public abstract ArrayList<E> makeRCL();
 
     /**
-	 * Creates the Tabu List, which is an ArrayDeque of the Tabu
-	 * candidate elements. The number of iterations a candidate
-	 * is considered tabu is given by the Tabu Tenure {@link #tenure}
+	 * Creates the Tabu List, which stamps the attributes of the moves
+	 * (typically the candidate elements) with the iteration until which they
+	 * are tabu. The number of iterations a candidate is considered tabu is
+	 * given by the Tabu Tenure {@link #tenure}
 	 * 
 	 * @return The Tabu List.
 	 */
-	public abstract ArrayDeque<E> makeTL();
+	public abstract TabuList makeTL();
 
 	/**
 	 * Updates the Candidate List according to the current solution
@@ -149,6 +260,168 @@ public abstract class AbstractTSGRASP<E> {
 	 */
 	public abstract Solution<E> localSearch(LocalSearchMethod localSearchMethod);
 
+	/**
+	 * Creates a new GRASP with the same parameters and problem, but with its
+	 * own state (solutions, lists and evaluator buffers), so that it can run
+	 * in its own thread in a parallel solve.
+	 * 
+	 * @return A GRASP independent from this one.
+	 */
+	public abstract AbstractTSGRASP<E> createWorker();
+
+	/**
+	 * Checks whether a candidate belongs to the granular neighbourhood, a
+	 * subset of the candidates which are a priori the most promising ones.
+	 * While the Candidate List has granular candidates, the constructive
+	 * heuristics only consider those. By default every candidate is granular.
+	 * 
+	 * @param candidate
+	 *            The candidate element.
+	 * @return true if the candidate belongs to the granular neighbourhood.
+	 */
+	protected boolean isGranular(E candidate) {
+		return true;
+	}
+
+	/**
+	 * Gives the index of a candidate in [0, domain size), under which its
+	 * insertion cost is cached between constructive steps. By default
+	 * candidates have no index and their costs are evaluated at every step.
+	 * 
+	 * @param candidate
+	 *            The candidate element.
+	 * @return The index of the candidate, or -1 if its cost is not cached.
+	 */
+	protected int getCandidateIndex(E candidate) {
+		return -1;
+	}
+
+	/**
+	 * Writes the elements of a solution to a checkpoint, to be read back by
+	 * {@link #readSolution(DataInput)}.
+	 * 
+	 * @param out
+	 *            The checkpoint.
+	 * @param sol
+	 *            The solution.
+	 */
+	protected abstract void writeSolution(DataOutput out, Solution<E> sol) throws IOException;
+
+	/**
+	 * Reads a solution written by {@link #writeSolution(DataOutput, Solution)}.
+	 * 
+	 * @param in
+	 *            The checkpoint.
+	 * @return The solution, evaluated.
+	 */
+	protected abstract Solution<E> readSolution(DataInput in) throws IOException;
+
+	/**
+	 * Checks whether inserting an element into the solution may change the
+	 * insertion cost of a candidate. By default every cost may change.
+	 * 
+	 * @param candidate
+	 *            The candidate element.
+	 * @param inserted
+	 *            The element just inserted into the solution.
+	 * @return true if the insertion cost of the candidate must be evaluated
+	 *         again.
+	 */
+	protected boolean isInsertionCostAffected(E candidate, E inserted) {
+		return true;
+	}
+
+	/**
+	 * Gives the distance between two solutions, under which the elite pool
+	 * keeps its members diverse. By default it is the number of elements
+	 * belonging to only one of them.
+	 * 
+	 * @param a
+	 *            A solution.
+	 * @param b
+	 *            Another solution.
+	 * @return The distance between the solutions, 0 if they are the same.
+	 */
+	protected int distance(Solution<E> a, Solution<E> b) {
+		int d = 0;
+		for (E elem : a) {
+			if (!b.contains(elem))
+				d++;
+		}
+		for (E elem : b) {
+			if (!a.contains(elem))
+				d++;
+		}
+		return d;
+	}
+
+	/**
+	 * Checks whether an element may be inserted into a solution outside of
+	 * the constructive heuristic, i.e. whether it would be a candidate of the
+	 * Candidate List of that solution. By default every element may be.
+	 * 
+	 * @param elem
+	 *            The element.
+	 * @param sol
+	 *            The solution, which does not contain the element.
+	 * @return true if the element may be inserted.
+	 */
+	protected boolean isInsertable(E elem, Solution<E> sol) {
+		return true;
+	}
+
+	/**
+	 * Moves a solution one step along the path to a guiding solution, making
+	 * the best insertion of an element of the guiding solution or removal of
+	 * an element not in it, and evaluates it. Only the insertions allowed by
+	 * {@link #isInsertable(Object, Solution)} are considered.
+	 * 
+	 * @param current
+	 *            The solution being relinked.
+	 * @param guiding
+	 *            The guiding solution.
+	 * @return false if no insertion or removal is feasible.
+	 */
+	protected boolean relinkingStep(Solution<E> current, Solution<E> guiding) {
+		E bestIn = null, bestOut = null;
+		double minDeltaCost = Double.POSITIVE_INFINITY;
+		long insertions = 0, removals = 0;
+		for (E elem : guiding) {
+			if (current.contains(elem) || !isInsertable(elem, current))
+				continue;
+			double deltaCost = evaluator.evaluateInsertionCost(elem, current);
+			insertions++;
+			if (deltaCost < minDeltaCost) {
+				minDeltaCost = deltaCost;
+				bestIn = elem;
+				bestOut = null;
+			}
+		}
+		for (E elem : current) {
+			if (guiding.contains(elem))
+				continue;
+			double deltaCost = evaluator.evaluateRemovalCost(elem, current);
+			removals++;
+			if (deltaCost < minDeltaCost) {
+				minDeltaCost = deltaCost;
+				bestIn = null;
+				bestOut = elem;
+			}
+		}
+		metrics.add(SolverMetrics.Counter.INSERTION_EVALUATIONS, insertions);
+		metrics.add(SolverMetrics.Counter.REMOVAL_EVALUATIONS, removals);
+
+		if (bestIn != null) {
+			current.add(bestIn);
+		} else if (bestOut != null) {
+			current.remove(bestOut);
+		} else {
+			return false;
+		}
+		evaluator.evaluate(current);
+		return true;
+	}
+
 	/**
 	 * Constructor for the AbstractGRASP class.
 	 * 
@@ -167,7 +440,178 @@ public abstract class AbstractTSGRASP<E> {
 		this.maxExecutionTime = maxExecutionTime;
 		this.tenure = tenure;
 	}
+
+	/**
+	 * Sets the seed of the random number generators, restarting their sequences.
+	 * 
+	 * @param seed
+	 *            The seed.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+		this.rng = new Random(seed);
+		this.alphaRng = new Random(seed);
+	}
 	
+	/**
+	 * Sets how often the deadline is checked during the constructive
+	 * heuristic and the local search, which are interrupted once it is
+	 * reached.
+	 * 
+	 * @param interval
+	 *            The number of constructive steps or local search moves
+	 *            between two reads of the clock.
+	 */
+	public void setDeadlineCheckInterval(int interval) {
+		this.deadlineCheckInterval = interval;
+	}
+
+	/**
+	 * Sets how the probability learning Reactive GRASP
+	 * ({@link ConstructiveMethod#REACTIVE_GRASP}) learns the probabilities
+	 * of the alphas.
+	 * 
+	 * @param updateInterval
+	 *            The number of iterations between two updates of the
+	 *            probabilities.
+	 * @param amplification
+	 *            The exponent amplifying the differences of average quality
+	 *            between the alphas, 0 for uniform probabilities.
+	 */
+	public void setReactiveParameters(int updateInterval, double amplification) {
+		this.reactiveUpdateInterval = updateInterval;
+		this.reactiveAmplification = amplification;
+	}
+
+	/**
+	 * Sets the path relinking intensification. After each local search, the
+	 * local optimum is relinked with a member of an elite pool, drawn with a
+	 * probability proportional to its distance to the local optimum. The
+	 * best solution of the path, improved by the same local search, replaces
+	 * the local optimum if better. The local optimum is then offered to the
+	 * pool. In a parallel solve each worker keeps its own pool.
+	 * 
+	 * @param method
+	 *            The relinking method, {@link RelinkingMethod#NONE} to
+	 *            disable path relinking.
+	 * @param eliteSize
+	 *            The capacity of the elite pool.
+	 * @param minEliteDistance
+	 *            The minimum distance to the members of a full pool of a
+	 *            solution entering it, unless it is better than all of them.
+	 */
+	public void setPathRelinking(RelinkingMethod method, int eliteSize, int minEliteDistance) {
+		if (eliteSize < 1)
+			throw new IllegalArgumentException("The elite pool must hold at least one solution");
+		this.relinkingMethod = method;
+		this.eliteSize = eliteSize;
+		this.minEliteDistance = minEliteDistance;
+	}
+
+	/**
+	 * Warm starts the serial solves from a solution, e.g. the incumbent of a
+	 * previous solve of a slightly different instance. The solution is
+	 * improved by the local search before the first iteration and becomes
+	 * the first incumbent.
+	 * 
+	 * @param sol
+	 *            The initial solution, which is not modified, or null to
+	 *            start from scratch.
+	 */
+	public void setInitialSolution(Solution<E> sol) {
+		this.initialSol = sol;
+	}
+
+	/**
+	 * Makes the serial solves checkpoint their state to a file between
+	 * iterations, every interval and once they end, so that they may be
+	 * resumed with {@link #resume(Path, ConstructiveMethod, LocalSearchMethod, String...)}.
+	 * The checkpoints are written by a background thread, the search only
+	 * waiting for the last one. The problem must support
+	 * {@link #writeSolution(DataOutput, Solution)} and
+	 * {@link #readSolution(DataInput)}.
+	 * 
+	 * @param file
+	 *            The checkpoint file, or null to disable checkpoints.
+	 * @param interval
+	 *            The min time between two checkpoints.
+	 */
+	public void setCheckpointing(Path file, Duration interval) {
+		this.checkpointFile = file;
+		this.checkpointInterval = interval;
+	}
+
+	/**
+	 * @return The elite pool of the last solve, or null if path relinking
+	 *         is disabled.
+	 */
+	public ElitePool<E> getElitePool() {
+		return elitePool;
+	}
+
+	/**
+	 * Sets the listener notified of every new incumbent solution while
+	 * solving, e.g. {@code (sol, iteration) -> publisher.submit(sol)} to
+	 * stream the incumbents through a {@link java.util.concurrent.SubmissionPublisher}.
+	 * 
+	 * @param listener
+	 *            The listener, or null for none.
+	 */
+	public void setIncumbentListener(IncumbentListener<E> listener) {
+		this.incumbentListener = listener;
+	}
+
+	/**
+	 * Sets the metrics collected while solving, shared by the workers of a
+	 * parallel solve.
+	 * 
+	 * @param metrics
+	 *            The metrics, or {@link SolverMetrics#DISABLED} for none.
+	 */
+	public void setMetrics(SolverMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public SolverMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Cancels the running solve, which returns the best solution found so
+	 * far. Can be called from any thread.
+	 */
+	public void cancel() {
+		cancelled.set(true);
+	}
+
+	/**
+	 * Checks whether the running solve must stop, because it was cancelled
+	 * or its deadline was reached. Meant to be called at every constructive
+	 * step and local search move, the clock being read only every
+	 * {@link #deadlineCheckInterval} calls.
+	 * 
+	 * @return true if the search must stop.
+	 */
+	protected boolean shouldStop() {
+		if (cancelled.get()) {
+			return true;
+		}
+		if (hasDeadline && --callsUntilDeadlineCheck <= 0) {
+			callsUntilDeadlineCheck = deadlineCheckInterval;
+			return System.nanoTime() - deadlineNanos >= 0;
+		}
+		return false;
+	}
+
+	/**
+	 * Starts the clock of a solve.
+	 */
+	private void startDeadline(long deadlineNanos) {
+		this.hasDeadline = true;
+		this.deadlineNanos = deadlineNanos;
+		this.callsUntilDeadlineCheck = 0;
+	}
+
 	/**
 	 * The GRASP constructive heuristic, which is responsible for building a
 	 * feasible solution by selecting in a greedy-random fashion, candidate
@@ -178,15 +622,17 @@ public abstract class AbstractTSGRASP<E> {
 	public Solution<E> constructiveHeuristic(ConstructiveMethod method, String... args) {
 		switch (method) {
 			case STANDARD:
-				alphas = new double[]{usedAlpha};
+				useAlphas(method, null);
 				return standardConstructiveHeuristic();
 			case RANDOM_PLUS_GREEDY:
-				alphas = new double[]{usedAlpha};
+				useAlphas(method, null);
 				return randomPlusGreedyConstructiveHeuristic(args);
 			case RANDOM_REACTIVE_GRASP:
-				alphas = getAlphasForRandomReactive();
+				useAlphas(method, ALPHAS_FOR_RANDOM_REACTIVE, WEIGHTS_FOR_RANDOM_REACTIVE);
 				return standardConstructiveHeuristic();
 			case BEST_ALPHA_REACTIVE_GRASP:
+			case REACTIVE_GRASP:
+				useAlphas(method, ALPHAS_FOR_BEST_REACTIVE, null);
 				return standardConstructiveHeuristic();
 			default:
 				System.out.println("Method not implemented");
@@ -194,71 +640,65 @@ public abstract class AbstractTSGRASP<E> {
 		}
 	}
 
-	private double[] getAlphasForRandomReactive() {
-		return new double[]{
-				0.1, 0.1, 0.1, 0.1, 0.1, 0.1, 0.1, 	// 7 out of 28 	=~ 25%
-				0.2, 0.2, 0.2, 0.2, 0.2, 0.2, 		// 6 out of 28	=~ 21%
-				0.3, 0.3, 0.3, 0.3, 0.3, 			// 5 out of 28 	=~ 18%
-				0.4, 0.4, 0.4, 0.4,					// 4 out of 28	=~ 14%
-				0.5, 0.5, 0.5, 						// 3 out of 28	=~ 11%
-				0.6, 0.6, 							// 2 out of 28	=~ 7%
-				0.7 								// 1 out of 28	=~ 4%
-		};
+	private static final double[] ALPHAS_FOR_RANDOM_REACTIVE = {0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7};
+
+	private static final double[] WEIGHTS_FOR_RANDOM_REACTIVE = {
+			7,	// 7 out of 28 	=~ 25%
+			6,	// 6 out of 28	=~ 21%
+			5,	// 5 out of 28 	=~ 18%
+			4,	// 4 out of 28	=~ 14%
+			3,	// 3 out of 28	=~ 11%
+			2,	// 2 out of 28	=~ 7%
+			1	// 1 out of 28	=~ 4%
+	};
+
+	private static final double[] ALPHAS_FOR_BEST_REACTIVE = {0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8};
+
+	/**
+	 * Makes the constructions sample their alpha from a distribution over
+	 * the given alphas, kept from a construction to the next while the
+	 * constructive method does not change.
+	 * 
+	 * @param alphaValues
+	 *            The alphas, or null to always use {@link #usedAlpha}.
+	 * @param weights
+	 *            The initial weights of the alphas, or null for uniform ones.
+	 */
+	private void useAlphas(ConstructiveMethod method, double[] alphaValues, double[] weights) {
+		if (alphaValues == null) {
+			alphas = null;
+		} else if (alphas == null || alphasMethod != method) {
+			alphas = weights == null ? AlphaDistribution.uniform(alphaValues) : new AlphaDistribution(alphaValues, weights);
+		}
+		alphasMethod = method;
 	}
 
-	private double[] getAlphasForBestReactive() {
-		return new double[]{0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8};
+	private void useAlphas(ConstructiveMethod method, AlphaDistribution distribution) {
+		alphas = distribution;
+		alphasMethod = method;
+	}
+
+	private ElitePool<E> makeElitePool() {
+		return relinkingMethod == RelinkingMethod.NONE ? null : new ElitePool<>(eliteSize, minEliteDistance, this::distance);
+	}
+
+	/**
+	 * Forgets the alphas learnt, before a new solve.
+	 */
+	private void resetAlphas() {
+		alphas = null;
+		alphasMethod = null;
+		reactiveIterations = 0;
 	}
 
 	private Solution<E> randomPlusGreedyConstructiveHeuristic(String... args) {
 		Integer p = Integer.parseInt(args[0]);
-		CL = makeCL();
-		RCL = makeRCL();
-		sol = createEmptySol();
-		cost = Double.POSITIVE_INFINITY;
-
-		usedAlpha = alphas[alphaRng.nextInt(alphas.length)];
+		startConstruction();
 
 		/* Main loop, which repeats until the stopping criteria is reached. */
 		int i = 0;
-		while (!constructiveStopCriteria()) {
-
-			double maxCost = Double.NEGATIVE_INFINITY, minCost = Double.POSITIVE_INFINITY;
-			cost = evaluator.evaluate(sol);
-			updateCL();
-
-			/*
-			 * Explore all candidate elements to enter the solution, saving the
-			 * highest and lowest cost variation achieved by the candidates.
-			 */
-			for (E c : CL) {
-				Double deltaCost = evaluator.evaluateInsertionCost(c, sol);
-				if (deltaCost < minCost)
-					minCost = deltaCost;
-				if (deltaCost > maxCost)
-					maxCost = deltaCost;
-			}
-
-			/*
-			 * Among all candidates, insert into the RCL those with the highest
-			 * performance using parameter alpha as threshold.
-			 */
-			for (E c : CL) {
-				Double deltaCost = evaluator.evaluateInsertionCost(c, sol);
-				if (deltaCost <= minCost + (i > p ? 0 : usedAlpha) * (maxCost - minCost)) {
-					RCL.add(c);
-				}
-			}
-
-			/* Choose a candidate randomly from the RCL */
-			if (!RCL.isEmpty()) {
-				int rndIndex = rng.nextInt(RCL.size());
-				E inCand = RCL.get(rndIndex);
-				CL.remove(inCand);
-				sol.add(inCand);
-				evaluator.evaluate(sol);
-				RCL.clear();
-			}
+		while (!constructiveStopCriteria() && !shouldStop()) {
+			constructiveStep(i > p ? 0 : usedAlpha);
 			i++;
 		}
 
@@ -267,55 +707,130 @@ public abstract class AbstractTSGRASP<E> {
 	}
 
 	private Solution<E> standardConstructiveHeuristic() {
+		startConstruction();
+
+		/* Main loop, which repeats until the stopping criteria is reached. */
+		while (!constructiveStopCriteria() && !shouldStop()) {
+			constructiveStep(usedAlpha);
+		}
+
+		return sol;
+	}
+
+	/**
+	 * Starts a construction from an empty solution, drawing the alpha used.
+	 */
+	private void startConstruction() {
 		CL = makeCL();
 		RCL = makeRCL();
 		sol = createEmptySol();
 		cost = Double.POSITIVE_INFINITY;
+		evaluator.evaluate(sol);
+		lastInserted = null;
+		if (cachedCosts == null) {
+			cachedCosts = new double[evaluator.getDomainSize()];
+			cachedCostsSteps = new int[evaluator.getDomainSize()];
+		}
+
+		if (alphas != null) {
+			usedAlphaIndex = alphas.sample(alphaRng);
+			usedAlpha = alphas.getAlpha(usedAlphaIndex);
+		}
+		metrics.recordAlpha(usedAlpha);
+	}
 
-		usedAlpha = alphas[alphaRng.nextInt(alphas.length)];
+	/**
+	 * Runs a step of the constructive heuristic, inserting into the solution
+	 * a candidate chosen randomly from the RCL.
+	 * 
+	 * @param alpha
+	 *            The greediness-randomness parameter of the step.
+	 */
+	private void constructiveStep(double alpha) {
+		double maxCost = Double.NEGATIVE_INFINITY, minCost = Double.POSITIVE_INFINITY;
+		cost = sol.cost;
+		updateCL();
+		constructiveStep++;
+		metrics.increment(SolverMetrics.Counter.CONSTRUCTIVE_STEPS);
+		metrics.record(SolverMetrics.HistogramType.CL_SIZE, CL.size());
+		int cachedCount = 0, evaluatedCount = 0;
 
-		/* Main loop, which repeats until the stopping criteria is reached. */
-		while (!constructiveStopCriteria()) {
-
-			double maxCost = Double.NEGATIVE_INFINITY, minCost = Double.POSITIVE_INFINITY;
-			cost = evaluator.evaluate(sol);
-			updateCL();
-
-			/*
-			 * Explore all candidate elements to enter the solution, saving the
-			 * highest and lowest cost variation achieved by the candidates.
-			 */
-			for (E c : CL) {
-				Double deltaCost = evaluator.evaluateInsertionCost(c, sol);
-				if (deltaCost < minCost)
-					minCost = deltaCost;
-				if (deltaCost > maxCost)
-					maxCost = deltaCost;
+		/*
+		 * Explore all candidate elements to enter the solution, saving the
+		 * highest and lowest cost variation achieved by the candidates. The
+		 * cost of a candidate is evaluated again only if the last insertion
+		 * may have changed it. Candidates whose insertion is infeasible (of
+		 * infinite cost) are left out of the step.
+		 */
+		boolean granular = hasGranularCandidate();
+		stepCandidates.clear();
+		if (stepCosts.length < CL.size()) {
+			stepCosts = new double[CL.size()];
+		}
+		for (E c : CL) {
+			if (granular && !isGranular(c))
+				continue;
+			double deltaCost;
+			int index = getCandidateIndex(c);
+			if (index >= 0 && lastInserted != null && cachedCostsSteps[index] == constructiveStep - 1
+					&& !isInsertionCostAffected(c, lastInserted)) {
+				deltaCost = cachedCosts[index];
+				cachedCount++;
+			} else {
+				deltaCost = evaluator.evaluateInsertionCost(c, sol);
+				evaluatedCount++;
 			}
-
-			/*
-			 * Among all candidates, insert into the RCL those with the highest
-			 * performance using parameter alpha as threshold.
-			 */
-			for (E c : CL) {
-				Double deltaCost = evaluator.evaluateInsertionCost(c, sol);
-				if (deltaCost <= minCost + usedAlpha * (maxCost - minCost)) {
-					RCL.add(c);
-				}
+			if (index >= 0) {
+				cachedCosts[index] = deltaCost;
+				cachedCostsSteps[index] = constructiveStep;
 			}
+			if (deltaCost == Double.POSITIVE_INFINITY)
+				continue;
+
+			stepCosts[stepCandidates.size()] = deltaCost;
+			stepCandidates.add(c);
+			if (deltaCost < minCost)
+				minCost = deltaCost;
+			if (deltaCost > maxCost)
+				maxCost = deltaCost;
+		}
+
+		metrics.add(SolverMetrics.Counter.CACHED_INSERTION_COSTS, cachedCount);
+		metrics.add(SolverMetrics.Counter.INSERTION_EVALUATIONS, evaluatedCount);
 
-			/* Choose a candidate randomly from the RCL */
-			if (!RCL.isEmpty()) {
-				int rndIndex = rng.nextInt(RCL.size());
-				E inCand = RCL.get(rndIndex);
-				CL.remove(inCand);
-				sol.add(inCand);
-				evaluator.evaluate(sol);
-				RCL.clear();
+		/*
+		 * Among all candidates, insert into the RCL those with the highest
+		 * performance using parameter alpha as threshold.
+		 */
+		for (int j = 0; j < stepCandidates.size(); j++) {
+			if (stepCosts[j] <= minCost + alpha * (maxCost - minCost)) {
+				RCL.add(stepCandidates.get(j));
 			}
 		}
+		metrics.record(SolverMetrics.HistogramType.RCL_SIZE, RCL.size());
 
-		return sol;
+		/* Choose a candidate randomly from the RCL */
+		if (!RCL.isEmpty()) {
+			int rndIndex = rng.nextInt(RCL.size());
+			E inCand = RCL.get(rndIndex);
+			CL.remove(inCand);
+			sol.add(inCand);
+			evaluator.evaluate(sol);
+			lastInserted = inCand;
+			RCL.clear();
+		}
+	}
+
+	/**
+	 * Checks whether the Candidate List has any granular candidate, otherwise
+	 * the constructive heuristics fall back to the whole list.
+	 */
+	private boolean hasGranularCandidate() {
+		for (E c : CL) {
+			if (isGranular(c))
+				return true;
+		}
+		return false;
 	}
 
 	/**
@@ -326,38 +841,438 @@ public abstract class AbstractTSGRASP<E> {
 	 * @return The best feasible solution obtained throughout all iterations.
 	 */
 	public Solution<E> solve(ConstructiveMethod constructiveMethod, LocalSearchMethod localSearchMethod, String... args) {
-		Instant started = Instant.now();
+		startedNanos = System.nanoTime();
+		startDeadline(startedNanos + maxExecutionTime.toNanos());
+		cancelled.set(false);
 		bestSol = createEmptySol();
-		alphas = getAlphasForBestReactive();
+		resetAlphas();
         TL = makeTL();
+		elitePool = makeElitePool();
+
+		if (initialSol != null) {
+			try {
+				warmStart(localSearchMethod);
+			} catch (RuntimeException e) {
+				// The deadline is otherwise cleared when the iterations end
+				hasDeadline = false;
+				throw e;
+			}
+		}
+		return runIterations(0, constructiveMethod, localSearchMethod, args);
+	}
 
-        for (int i = 0; i < iterations; i++) {
-            constructiveHeuristic(constructiveMethod, args);
-			localSearch(localSearchMethod);
-
-			if (bestSol.cost > sol.cost) {
-				bestSol = new Solution<E>(sol);
-				if (constructiveMethod.equals(ConstructiveMethod.BEST_ALPHA_REACTIVE_GRASP)) {
-					double[] newAlphas = new double[alphas.length + 1];
-					for (int j = 0; j < alphas.length; j++) {
-						newAlphas[j] = alphas[j];
-					}
-					newAlphas[alphas.length] = usedAlpha;
-					alphas = newAlphas;
+	/**
+	 * Resumes a serial solve from a checkpoint written by it (see
+	 * {@link #setCheckpointing(Path, Duration)}), running its remaining
+	 * iterations within what is left of the max execution time. The solver
+	 * must be set up as for the solve interrupted, on the same instance; the
+	 * resumed solve then finds the same solutions as if it had not been
+	 * interrupted, unless the time limit is reached.
+	 * 
+	 * @param checkpointFile
+	 *            The checkpoint.
+	 * @return The best feasible solution obtained throughout all iterations.
+	 */
+	public Solution<E> resume(Path checkpointFile, ConstructiveMethod constructiveMethod, LocalSearchMethod localSearchMethod, String... args) {
+		cancelled.set(false);
+		resetAlphas();
+		TL = makeTL();
+		elitePool = makeElitePool();
+
+		int firstIteration;
+		long elapsedNanos;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointFile)))) {
+			firstIteration = readCheckpointHeader(in);
+			elapsedNanos = in.readLong();
+			rng = readRandom(in);
+			alphaRng = readRandom(in);
+			bestSol = readCheckpointSolution(in);
+			for (int members = in.readInt(); members > 0; members--) {
+				Solution<E> member = readCheckpointSolution(in);
+				if (elitePool != null)
+					elitePool.offer(member);
+			}
+			String method = in.readUTF();
+			alphasMethod = method.isEmpty() ? null : ConstructiveMethod.valueOf(method);
+			reactiveIterations = in.readInt();
+			alphas = in.readBoolean() ? AlphaDistribution.read(in) : null;
+			TL.read(in);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		startedNanos = System.nanoTime() - elapsedNanos;
+		startDeadline(startedNanos + maxExecutionTime.toNanos());
+		return runIterations(firstIteration, constructiveMethod, localSearchMethod, args);
+	}
+
+	/**
+	 * Reads the incumbent of a checkpoint, e.g. to warm start another solve
+	 * with {@link #setInitialSolution(Solution)}.
+	 * 
+	 * @param checkpointFile
+	 *            The checkpoint.
+	 * @return The best solution found by the solve up to the checkpoint.
+	 */
+	public Solution<E> readIncumbent(Path checkpointFile) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointFile)))) {
+			readCheckpointHeader(in);
+			in.readLong();
+			readRandom(in);
+			readRandom(in);
+			return readCheckpointSolution(in);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Runs the iterations of a serial solve from the given one, writing the
+	 * checkpoints if enabled.
+	 */
+	private Solution<E> runIterations(int firstIteration, ConstructiveMethod constructiveMethod, LocalSearchMethod localSearchMethod, String... args) {
+		CheckpointWriter checkpointWriter = checkpointFile == null ? null : new CheckpointWriter(checkpointFile);
+		long nextCheckpointNanos = checkpointWriter == null ? 0 : System.nanoTime() + checkpointInterval.toNanos();
+		int nextIteration = firstIteration;
+
+        try {
+			for (int i = firstIteration; i < iterations; i++) {
+				if (iterate(constructiveMethod, localSearchMethod, args)) {
+					if (verbose)
+						System.out.println("(Iter. " + i + ") BestSol = " + bestSol);
+					if (incumbentListener != null)
+						incumbentListener.improved(bestSol, i);
+				}
+				nextIteration = i + 1;
+
+				if (checkpointWriter != null && System.nanoTime() - nextCheckpointNanos >= 0) {
+					checkpointWriter.submit(writeCheckpoint(nextIteration));
+					nextCheckpointNanos = System.nanoTime() + checkpointInterval.toNanos();
+				}
+				if (cancelled.get()) {
+					if (verbose)
+						System.out.println("Interrupting - Cancelled.");
+					break;
+				}
+				if (System.nanoTime() - deadlineNanos >= 0) {
+					if (verbose)
+						System.out.println("Interrupting - Max execution time exceeded.");
+					break;
 				}
-				if (verbose)
-					System.out.println("(Iter. " + i + ") BestSol = " + bestSol);
 			}
 
-			if (Instant.now().isAfter(started.plus(maxExecutionTime))) {
-				System.out.println("Interrupting - Max execution time exceeded.");
-				break;
+			if (checkpointWriter != null)
+				checkpointWriter.submit(writeCheckpoint(nextIteration));
+		} finally {
+			hasDeadline = false;
+			if (checkpointWriter != null)
+				checkpointWriter.close();
+		}
+
+		return bestSol;
+	}
+
+	/**
+	 * Writes the state of a serial solve between two iterations: the next
+	 * iteration, the time elapsed, the states of the random number
+	 * generators, the incumbent, the elite pool, the alphas learnt and the
+	 * tabu list.
+	 * 
+	 * @return The checkpoint.
+	 */
+	private byte[] writeCheckpoint(int nextIteration) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(CHECKPOINT_MAGIC);
+			out.writeInt(CHECKPOINT_VERSION);
+			out.writeInt(evaluator.getDomainSize());
+			out.writeInt(nextIteration);
+			out.writeLong(System.nanoTime() - startedNanos);
+			writeRandom(out, rng);
+			writeRandom(out, alphaRng);
+			writeCheckpointSolution(out, bestSol);
+			List<Solution<E>> members = elitePool == null ? Collections.emptyList() : elitePool.getMembers();
+			out.writeInt(members.size());
+			for (Solution<E> member : members) {
+				writeCheckpointSolution(out, member);
 			}
+			out.writeUTF(alphasMethod == null ? "" : alphasMethod.name());
+			out.writeInt(reactiveIterations);
+			out.writeBoolean(alphas != null);
+			if (alphas != null)
+				alphas.write(out);
+			TL.write(out);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
 		}
+		return bytes.toByteArray();
+	}
 
+	/**
+	 * Checks that a checkpoint was written for this instance.
+	 * 
+	 * @return The iteration the checkpoint was written before.
+	 */
+	private int readCheckpointHeader(DataInput in) throws IOException {
+		if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION)
+			throw new IOException("Not a checkpoint of this version");
+		if (in.readInt() != evaluator.getDomainSize())
+			throw new IOException("The checkpoint is of another instance");
+		return in.readInt();
+	}
+
+	private void writeCheckpointSolution(DataOutput out, Solution<E> sol) throws IOException {
+		writeSolution(out, sol);
+		out.writeDouble(sol.cost);
+	}
+
+	private Solution<E> readCheckpointSolution(DataInput in) throws IOException {
+		Solution<E> sol = readSolution(in);
+		sol.cost = in.readDouble();
+		return sol;
+	}
+
+	/**
+	 * Writes the state of a random number generator, only reachable through
+	 * its serialised form.
+	 */
+	private static void writeRandom(DataOutput out, Random random) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+			objects.writeObject(random);
+		}
+		out.writeInt(bytes.size());
+		out.write(bytes.toByteArray());
+	}
+
+	private static Random readRandom(DataInput in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return (Random) objects.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * The parallel GRASP mainframe. The iterations are distributed among
+	 * workers created by {@link #createWorker()}, worker {@code w} running
+	 * iterations {@code w, w + workers, w + 2 * workers, ...} with its own
+	 * random number generators, seeded from {@link #seed} and {@code w}. The
+	 * best solution of each iteration is merged into a shared incumbent,
+	 * ties being broken by the lowest iteration, so that the same seed and
+	 * number of workers always give the same result (as long as the time
+	 * limit is not reached).
+	 * 
+	 * @param workers
+	 *            The number of workers.
+	 * @param executor
+	 *            The executor running the workers, e.g. a {@link ForkJoinPool}.
+	 * @return The best feasible solution obtained throughout all iterations.
+	 */
+	public Solution<E> solve(ConstructiveMethod constructiveMethod, LocalSearchMethod localSearchMethod, int workers, ExecutorService executor, String... args) {
+		long deadline = System.nanoTime() + maxExecutionTime.toNanos();
+		cancelled.set(false);
+		AtomicReference<Incumbent<E>> incumbent = new AtomicReference<>(new Incumbent<>(createEmptySol(), Integer.MAX_VALUE));
+
+		List<Future<?>> tasks = new ArrayList<>();
+		for (int w = 0; w < workers; w++) {
+			AbstractTSGRASP<E> worker = createWorker();
+			worker.setSeed(seed + w * 0x9E3779B97F4A7C15L);
+			worker.cancelled = cancelled;
+			worker.setReactiveParameters(reactiveUpdateInterval, reactiveAmplification);
+			worker.setPathRelinking(relinkingMethod, eliteSize, minEliteDistance);
+			worker.metrics = metrics;
+			worker.incumbentListener = incumbentListener;
+			worker.setDeadlineCheckInterval(deadlineCheckInterval);
+			int firstIteration = w;
+			tasks.add(executor.submit(() -> worker.solveShare(constructiveMethod, localSearchMethod, firstIteration, workers, deadline, incumbent, args)));
+		}
+
+		for (Future<?> task : tasks) {
+			try {
+				task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+
+		bestSol = incumbent.get().sol;
 		return bestSol;
 	}
 
+	/**
+	 * The parallel GRASP mainframe running on a dedicated {@link ForkJoinPool}
+	 * with one thread per worker.
+	 * 
+	 * @param workers
+	 *            The number of workers.
+	 * @return The best feasible solution obtained throughout all iterations.
+	 */
+	public Solution<E> solve(ConstructiveMethod constructiveMethod, LocalSearchMethod localSearchMethod, int workers, String... args) {
+		ForkJoinPool pool = new ForkJoinPool(workers);
+		try {
+			return solve(constructiveMethod, localSearchMethod, workers, pool, args);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Runs the share of the iterations of a worker in a parallel solve,
+	 * offering each improvement of its own best solution to the shared
+	 * incumbent.
+	 */
+	private void solveShare(ConstructiveMethod constructiveMethod, LocalSearchMethod localSearchMethod, int firstIteration, int step, long deadline, AtomicReference<Incumbent<E>> incumbent, String... args) {
+		startDeadline(deadline);
+		bestSol = createEmptySol();
+		resetAlphas();
+		TL = makeTL();
+		elitePool = makeElitePool();
+
+		for (int i = firstIteration; i < iterations; i += step) {
+			if (iterate(constructiveMethod, localSearchMethod, args)) {
+				Incumbent<E> offered = new Incumbent<>(bestSol.copy(), i);
+				if (incumbent.accumulateAndGet(offered, Incumbent::best) == offered)
+					publish(offered, incumbent);
+			}
+
+			if (cancelled.get() || System.nanoTime() - deadline >= 0) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Reports a new incumbent of a parallel solve. Workers report one at a
+	 * time, and an incumbent already beaten by another worker is not
+	 * reported, so that the listener sees improving solutions only.
+	 */
+	private void publish(Incumbent<E> offered, AtomicReference<Incumbent<E>> incumbent) {
+		synchronized (incumbent) {
+			if (incumbent.get() != offered)
+				return;
+			if (verbose)
+				System.out.println("(Iter. " + offered.iteration + ") BestSol = " + offered.sol);
+			if (incumbentListener != null)
+				incumbentListener.improved(offered.sol, offered.iteration);
+		}
+	}
+
+	/**
+	 * Runs a single GRASP iteration, i.e. the constructive heuristic followed
+	 * by the local search, updating the best solution.
+	 * 
+	 * @return true if the best solution was improved.
+	 */
+	private boolean iterate(ConstructiveMethod constructiveMethod, LocalSearchMethod localSearchMethod, String... args) {
+		long started = metrics.isEnabled() ? System.nanoTime() : 0;
+		constructiveHeuristic(constructiveMethod, args);
+		long constructed = metrics.isEnabled() ? System.nanoTime() : 0;
+		localSearch(localSearchMethod);
+		long searched = metrics.isEnabled() ? System.nanoTime() : 0;
+		if (elitePool != null) {
+			pathRelinking(localSearchMethod);
+		}
+		if (metrics.isEnabled()) {
+			metrics.add(SolverMetrics.Counter.CONSTRUCTION_NANOS, constructed - started);
+			metrics.add(SolverMetrics.Counter.LOCAL_SEARCH_NANOS, searched - constructed);
+			if (elitePool != null)
+				metrics.add(SolverMetrics.Counter.RELINKING_NANOS, System.nanoTime() - searched);
+			metrics.increment(SolverMetrics.Counter.ITERATIONS);
+		}
+
+		if (constructiveMethod.equals(ConstructiveMethod.REACTIVE_GRASP)) {
+			alphas.record(usedAlphaIndex, sol.cost);
+			if (++reactiveIterations % reactiveUpdateInterval == 0) {
+				alphas.learn(reactiveAmplification);
+			}
+		}
+
+		if (bestSol.cost > sol.cost) {
+			metrics.increment(SolverMetrics.Counter.IMPROVEMENTS);
+			bestSol = sol.copy();
+			if (constructiveMethod.equals(ConstructiveMethod.BEST_ALPHA_REACTIVE_GRASP)) {
+				// Each alpha leading to a new best solution becomes more likely
+				alphas.addWeight(usedAlphaIndex, 1);
+			}
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Improves the initial solution by the local search and makes it the
+	 * first incumbent.
+	 */
+	private void warmStart(LocalSearchMethod localSearchMethod) {
+		CL = makeCL();
+		RCL = makeRCL();
+		sol = initialSol.copy();
+		evaluator.evaluate(sol);
+		localSearch(localSearchMethod);
+		bestSol = sol.copy();
+		if (elitePool != null)
+			elitePool.offer(sol);
+		if (incumbentListener != null)
+			incumbentListener.improved(bestSol, -1);
+	}
+
+	/**
+	 * Relinks the local optimum of the iteration with a member of the elite
+	 * pool, keeping the best of the local optimum and of the path improved by
+	 * the local search, then offers the local optimum to the pool.
+	 */
+	private void pathRelinking(LocalSearchMethod localSearchMethod) {
+		Solution<E> localOptimum = sol;
+		Solution<E> guiding = elitePool.select(localOptimum, rng);
+		if (guiding != null) {
+			Solution<E> relinked = relink(localOptimum, guiding);
+			if (relinked != null) {
+				sol = relinked;
+				localSearch(localSearchMethod);
+				if (sol.cost < localOptimum.cost) {
+					metrics.increment(SolverMetrics.Counter.RELINKING_IMPROVEMENTS);
+				} else {
+					sol = localOptimum;
+				}
+			}
+		}
+		elitePool.offer(localOptimum);
+	}
+
+	/**
+	 * Walks the path between two solutions: from the worse one to the better
+	 * one (forward), from the better one to the worse one (backward), or from
+	 * both ends alternately until they meet (mixed).
+	 * 
+	 * @return The best solution strictly inside the path, or null if the
+	 *         solutions are adjacent.
+	 */
+	private Solution<E> relink(Solution<E> a, Solution<E> b) {
+		Solution<E> better = a.cost <= b.cost ? a : b;
+		Solution<E> worse = better == a ? b : a;
+		Solution<E> current = (relinkingMethod == RelinkingMethod.FORWARD ? worse : better).copy();
+		Solution<E> guiding = (relinkingMethod == RelinkingMethod.FORWARD ? better : worse).copy();
+
+		Solution<E> best = null;
+		while (!shouldStop() && relinkingStep(current, guiding) && distance(current, guiding) > 0) {
+			if (best == null || current.cost < best.cost)
+				best = current.copy();
+			if (relinkingMethod == RelinkingMethod.MIXED) {
+				Solution<E> other = current;
+				current = guiding;
+				guiding = other;
+			}
+		}
+		return best;
+	}
+
 	/**
 	 * A standard stopping criteria for the constructive heuristic is to repeat
 	 * until the current solution improves by inserting a new candidate
@@ -370,11 +1285,63 @@ public abstract class AbstractTSGRASP<E> {
 	}
 
 	public enum ConstructiveMethod {
-		STANDARD, RANDOM_PLUS_GREEDY, RANDOM_REACTIVE_GRASP, BEST_ALPHA_REACTIVE_GRASP
+		STANDARD, RANDOM_PLUS_GREEDY, RANDOM_REACTIVE_GRASP, BEST_ALPHA_REACTIVE_GRASP, REACTIVE_GRASP
 	}
 
     public enum LocalSearchMethod {
-		FIRST_IMPROVING, BEST_IMPROVING, TABU_SEARCH, TABU_PROBABILISTIC_50_PERCENT
+		FIRST_IMPROVING, BEST_IMPROVING, TABU_SEARCH, TABU_PROBABILISTIC_50_PERCENT, REACTIVE_TABU_SEARCH, ALNS
+	}
+
+	public enum RelinkingMethod {
+		NONE, FORWARD, BACKWARD, MIXED
+	}
+
+	/**
+	 * Listener of the incumbent solutions of a solve, notified of each one as
+	 * soon as it is found, while the search goes on. In a parallel solve it
+	 * is notified from the workers threads, but never concurrently.
+	 * 
+	 * @param <E>
+	 *            Generic type of the element which composes the solution.
+	 */
+	@FunctionalInterface
+	public interface IncumbentListener<E> {
+
+		/**
+		 * Notifies a new incumbent solution, which must not be modified.
+		 * 
+		 * @param sol
+		 *            The new incumbent solution.
+		 * @param iteration
+		 *            The GRASP iteration it was found at.
+		 */
+		void improved(Solution<E> sol, int iteration);
+
+	}
+
+	/**
+	 * The best solution shared by the workers of a parallel solve, along with
+	 * the iteration it was found in.
+	 */
+	private static class Incumbent<E> {
+
+		private final Solution<E> sol;
+
+		private final int iteration;
+
+		Incumbent(Solution<E> sol, int iteration) {
+			this.sol = sol;
+			this.iteration = iteration;
+		}
+
+		static <E> Incumbent<E> best(Incumbent<E> a, Incumbent<E> b) {
+			int comparison = Double.compare(a.sol.cost, b.sol.cost);
+			if (comparison == 0) {
+				comparison = Integer.compare(a.iteration, b.iteration);
+			}
+			return comparison <= 0 ? a : b;
+		}
+
 	}
 
 }
@@ -0,0 +1,258 @@
+package grasp.framework;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Probability distribution over a fixed set of alphas, the GRASP
+ * greediness-randomness parameters, for the Reactive GRASP. The alphas are
+ * sampled in O(1) from an alias table, rebuilt whenever the probabilities
+ * change.
+ *
+ * The probabilities may be learnt from the quality of the solutions obtained
+ * with each alpha: alpha i gets a weight (best cost / average cost of alpha i)
+ * ^ amplification, so that alphas leading to better solutions on average are
+ * sampled more often. Alphas not used yet are given the weight of the best
+ * average, so that they keep being explored.
+ */
+public class AlphaDistribution {
+
+	private final double[] alphas;
+
+	/**
+	 * the selection weights of the alphas, proportional to their probabilities
+	 */
+	private final double[] weights;
+
+	/**
+	 * the alias table: a sampled alpha is kept with its own probability, or
+	 * else replaced by its alias
+	 */
+	private final double[] keepProbabilities;
+	private final int[] aliases;
+
+	/**
+	 * the sum and number of the costs of the solutions obtained with each
+	 * alpha, and the best cost obtained
+	 */
+	private final double[] costSums;
+	private final int[] costCounts;
+	private double bestCost = Double.POSITIVE_INFINITY;
+
+	/**
+	 * Constructor for the AlphaDistribution class.
+	 *
+	 * @param alphas
+	 *            The alphas.
+	 * @param weights
+	 *            The initial weights of the alphas, proportional to their
+	 *            probabilities.
+	 */
+	public AlphaDistribution(double[] alphas, double[] weights) {
+		this.alphas = alphas.clone();
+		this.weights = weights.clone();
+		this.keepProbabilities = new double[alphas.length];
+		this.aliases = new int[alphas.length];
+		this.costSums = new double[alphas.length];
+		this.costCounts = new int[alphas.length];
+		buildAliasTable();
+	}
+
+	/**
+	 * Creates a distribution in which every alpha is equally likely.
+	 *
+	 * @param alphas
+	 *            The alphas.
+	 * @return The uniform distribution.
+	 */
+	public static AlphaDistribution uniform(double... alphas) {
+		double[] weights = new double[alphas.length];
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] = 1;
+		}
+		return new AlphaDistribution(alphas, weights);
+	}
+
+	public int size() {
+		return alphas.length;
+	}
+
+	public double getAlpha(int index) {
+		return alphas[index];
+	}
+
+	/**
+	 * Gives the probability of an alpha being sampled.
+	 *
+	 * @param index
+	 *            The index of the alpha.
+	 * @return The probability of the alpha.
+	 */
+	public double getProbability(int index) {
+		double total = 0;
+		for (double weight : weights) {
+			total += weight;
+		}
+		return weights[index] / total;
+	}
+
+	/**
+	 * Samples an alpha.
+	 *
+	 * @param rng
+	 *            The random number generator.
+	 * @return The index of the alpha sampled.
+	 */
+	public int sample(Random rng) {
+		int index = rng.nextInt(alphas.length);
+		return rng.nextDouble() < keepProbabilities[index] ? index : aliases[index];
+	}
+
+	/**
+	 * Increases the weight of an alpha, e.g. each time it leads to a new best
+	 * solution.
+	 *
+	 * @param index
+	 *            The index of the alpha.
+	 * @param weight
+	 *            The weight added.
+	 */
+	public void addWeight(int index, double weight) {
+		weights[index] += weight;
+		buildAliasTable();
+	}
+
+	/**
+	 * Records the cost of a solution obtained with an alpha.
+	 *
+	 * @param index
+	 *            The index of the alpha.
+	 * @param cost
+	 *            The cost of the solution.
+	 */
+	public void record(int index, double cost) {
+		costSums[index] += cost;
+		costCounts[index]++;
+		bestCost = Math.min(bestCost, cost);
+	}
+
+	/**
+	 * Recomputes the probabilities of the alphas from the costs recorded so
+	 * far. Does nothing until some cost is recorded.
+	 *
+	 * @param amplification
+	 *            The exponent amplifying the differences between the
+	 *            averages, 0 giving a uniform distribution.
+	 */
+	public void learn(double amplification) {
+		if (bestCost == Double.POSITIVE_INFINITY) {
+			return;
+		}
+
+		double bestWeight = 0;
+		for (int i = 0; i < alphas.length; i++) {
+			if (costCounts[i] > 0) {
+				weights[i] = getLearntWeight(costSums[i] / costCounts[i], amplification);
+				bestWeight = Math.max(bestWeight, weights[i]);
+			}
+		}
+		for (int i = 0; i < alphas.length; i++) {
+			if (costCounts[i] == 0) {
+				weights[i] = bestWeight;
+			}
+		}
+		buildAliasTable();
+	}
+
+	private double getLearntWeight(double averageCost, double amplification) {
+		if (averageCost <= 0 || bestCost <= 0) {
+			// The ratio is meaningless for non positive costs, fall back to the distance to the best cost
+			return Math.pow(1 / (1 + averageCost - bestCost), amplification);
+		}
+		return Math.pow(bestCost / averageCost, amplification);
+	}
+
+	/**
+	 * Writes the alphas, their weights and the costs recorded so far.
+	 */
+	void write(DataOutput out) throws IOException {
+		out.writeInt(alphas.length);
+		for (int i = 0; i < alphas.length; i++) {
+			out.writeDouble(alphas[i]);
+			out.writeDouble(weights[i]);
+			out.writeDouble(costSums[i]);
+			out.writeInt(costCounts[i]);
+		}
+		out.writeDouble(bestCost);
+	}
+
+	/**
+	 * Reads a distribution written by {@link #write(DataOutput)}.
+	 */
+	static AlphaDistribution read(DataInput in) throws IOException {
+		int size = in.readInt();
+		double[] alphas = new double[size];
+		double[] weights = new double[size];
+		double[] costSums = new double[size];
+		int[] costCounts = new int[size];
+		for (int i = 0; i < size; i++) {
+			alphas[i] = in.readDouble();
+			weights[i] = in.readDouble();
+			costSums[i] = in.readDouble();
+			costCounts[i] = in.readInt();
+		}
+
+		AlphaDistribution distribution = new AlphaDistribution(alphas, weights);
+		System.arraycopy(costSums, 0, distribution.costSums, 0, size);
+		System.arraycopy(costCounts, 0, distribution.costCounts, 0, size);
+		distribution.bestCost = in.readDouble();
+		return distribution;
+	}
+
+	/**
+	 * Builds the alias table of the current weights (Vose's method).
+	 */
+	private void buildAliasTable() {
+		int k = alphas.length;
+		double total = 0;
+		for (double weight : weights) {
+			total += weight;
+		}
+
+		int[] small = new int[k];
+		int[] large = new int[k];
+		int smallCount = 0, largeCount = 0;
+		for (int i = 0; i < k; i++) {
+			keepProbabilities[i] = total > 0 ? weights[i] * k / total : 1;
+			aliases[i] = i;
+			if (keepProbabilities[i] < 1) {
+				small[smallCount++] = i;
+			} else {
+				large[largeCount++] = i;
+			}
+		}
+
+		while (smallCount > 0 && largeCount > 0) {
+			int less = small[--smallCount];
+			int more = large[--largeCount];
+			aliases[less] = more;
+			keepProbabilities[more] -= 1 - keepProbabilities[less];
+			if (keepProbabilities[more] < 1) {
+				small[smallCount++] = more;
+			} else {
+				large[largeCount++] = more;
+			}
+		}
+
+		// Numerical leftovers are kept with probability 1
+		while (largeCount > 0) {
+			keepProbabilities[large[--largeCount]] = 1;
+		}
+		while (smallCount > 0) {
+			keepProbabilities[small[--smallCount]] = 1;
+		}
+	}
+
+}
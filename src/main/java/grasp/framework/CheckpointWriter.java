@@ -0,0 +1,95 @@
+package grasp.framework;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes the checkpoints of a solve to a file from a background thread, so
+ * that the search does not wait for the disk. Only the latest checkpoint
+ * matters: one submitted while another is still waiting to be written
+ * replaces it. Each checkpoint is written to a temporary file then moved over
+ * the previous one, so the file always holds a whole checkpoint.
+ */
+class CheckpointWriter {
+
+	private final Path file;
+	private final Path tempFile;
+	private final ExecutorService executor;
+
+	/**
+	 * the checkpoint waiting to be written, if any
+	 */
+	private final AtomicReference<byte[]> pending = new AtomicReference<>();
+
+	/**
+	 * the first failure to write a checkpoint, reported by {@link #close()}
+	 */
+	private volatile IOException failure;
+
+	/**
+	 * Constructor for the CheckpointWriter class.
+	 *
+	 * @param file
+	 *            The file the checkpoints are written to.
+	 */
+	CheckpointWriter(Path file) {
+		this.file = file.toAbsolutePath();
+		this.tempFile = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+		this.executor = Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "checkpoint-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Schedules the writing of a checkpoint, replacing the one waiting to be
+	 * written, if any.
+	 *
+	 * @param checkpoint
+	 *            The checkpoint, which must not be modified afterwards.
+	 */
+	void submit(byte[] checkpoint) {
+		if (pending.getAndSet(checkpoint) == null)
+			executor.execute(this::writePending);
+	}
+
+	/**
+	 * Waits for the checkpoints submitted to be written.
+	 *
+	 * @throws RuntimeException
+	 *             if a checkpoint could not be written.
+	 */
+	void close() {
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		if (failure != null)
+			throw new RuntimeException(failure);
+	}
+
+	private void writePending() {
+		byte[] checkpoint = pending.getAndSet(null);
+		if (checkpoint == null || failure != null)
+			return;
+
+		try {
+			Files.createDirectories(file.getParent());
+			Files.write(tempFile, checkpoint);
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			failure = e;
+		}
+	}
+
+}
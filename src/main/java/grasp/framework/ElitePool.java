@@ -0,0 +1,140 @@
+package grasp.framework;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Bounded pool of elite solutions, both good and diverse, for the path
+ * relinking intensification.
+ *
+ * A solution enters the pool while it is not full if it differs from every
+ * member. Once the pool is full, it enters if it is better than the best
+ * member, or if it is better than the worst member and at least
+ * {@link #minDistance} away from every member. It then replaces the member
+ * most similar to it among those not better than it.
+ *
+ * @param <E>
+ *            Generic type of the element which composes the solution.
+ */
+public class ElitePool<E> {
+
+	private final int capacity;
+
+	/**
+	 * the minimum distance to the members of a full pool of a solution not
+	 * better than all of them
+	 */
+	private final int minDistance;
+
+	/**
+	 * the distance between two solutions, 0 meaning the same solution
+	 */
+	private final ToIntBiFunction<Solution<E>, Solution<E>> distance;
+
+	private final List<Solution<E>> members = new ArrayList<>();
+
+	/**
+	 * Constructor for the ElitePool class.
+	 *
+	 * @param capacity
+	 *            The maximum number of members.
+	 * @param minDistance
+	 *            The minimum distance of a solution to the members of a
+	 *            full pool, unless it is better than all of them.
+	 * @param distance
+	 *            The distance between two solutions.
+	 */
+	public ElitePool(int capacity, int minDistance, ToIntBiFunction<Solution<E>, Solution<E>> distance) {
+		this.capacity = capacity;
+		this.minDistance = minDistance;
+		this.distance = distance;
+	}
+
+	/**
+	 * Offers a solution to the pool, which keeps a copy of it if accepted.
+	 *
+	 * @param sol
+	 *            The solution offered.
+	 * @return true if the solution entered the pool.
+	 */
+	public boolean offer(Solution<E> sol) {
+		int closest = -1, closestDistance = Integer.MAX_VALUE, minDistanceToMembers = Integer.MAX_VALUE;
+		boolean betterThanAll = true, betterThanWorst = false;
+		for (int i = 0; i < members.size(); i++) {
+			Solution<E> member = members.get(i);
+			int d = distance.applyAsInt(sol, member);
+			if (d == 0)
+				return false;
+
+			minDistanceToMembers = Math.min(minDistanceToMembers, d);
+			betterThanAll &= sol.cost < member.cost;
+			betterThanWorst |= sol.cost < member.cost;
+			if (sol.cost <= member.cost && d < closestDistance) {
+				closest = i;
+				closestDistance = d;
+			}
+		}
+
+		if (members.size() < capacity) {
+			members.add(sol.copy());
+			return true;
+		}
+		if (!betterThanAll && (!betterThanWorst || minDistanceToMembers < minDistance))
+			return false;
+
+		members.set(closest, sol.copy());
+		return true;
+	}
+
+	/**
+	 * Draws a member to relink a solution with, with a probability
+	 * proportional to its distance to the solution.
+	 *
+	 * @param sol
+	 *            The solution to be relinked.
+	 * @param rng
+	 *            The random number generator.
+	 * @return The member drawn, or null if every member is the solution.
+	 */
+	public Solution<E> select(Solution<E> sol, Random rng) {
+		int[] distances = new int[members.size()];
+		long total = 0;
+		for (int i = 0; i < distances.length; i++) {
+			distances[i] = distance.applyAsInt(sol, members.get(i));
+			total += distances[i];
+		}
+		if (total == 0)
+			return null;
+
+		long drawn = (long) (rng.nextDouble() * total);
+		for (int i = 0; i < distances.length; i++) {
+			drawn -= distances[i];
+			if (drawn < 0)
+				return members.get(i);
+		}
+		return members.get(distances.length - 1);
+	}
+
+	public int size() {
+		return members.size();
+	}
+
+	public boolean isEmpty() {
+		return members.isEmpty();
+	}
+
+	public void clear() {
+		members.clear();
+	}
+
+	/**
+	 * @return The members of the pool, which must not be modified.
+	 */
+	public List<Solution<E>> getMembers() {
+		return Collections.unmodifiableList(members);
+	}
+
+}
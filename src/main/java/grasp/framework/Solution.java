@@ -6,8 +6,12 @@ import java.util.Collection;
 @SuppressWarnings("serial")
 public class Solution<E> extends ArrayList<E> {
 	
-	public Double cost = Double.POSITIVE_INFINITY;
-	public Double usedCapacity = 0.0;
+	/**
+	 * the cost and used capacity of the solution, primitive so that
+	 * evaluating a solution does not box them
+	 */
+	public double cost = Double.POSITIVE_INFINITY;
+	public double usedCapacity = 0.0;
 
 	public Solution() {
 		super();
@@ -23,6 +27,16 @@ public class Solution<E> extends ArrayList<E> {
 		usedCapacity = sol.usedCapacity;
 	}
 
+	/**
+	 * Creates a copy of this solution. Specialised solutions override it to
+	 * copy their own state.
+	 * 
+	 * @return a copy of the solution.
+	 */
+	public Solution<E> copy() {
+		return new Solution<E>(this);
+	}
+
 	@Override
 	public String toString() {
 		return "Solution: cost=[" + cost + "], capacity=[" + usedCapacity + "], size=[" + this.size() + "], elements=" + super.toString();
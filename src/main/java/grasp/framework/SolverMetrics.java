@@ -0,0 +1,306 @@
+package grasp.framework;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Metrics of a solve: counters of the work done by the constructive heuristic
+ * and the local search, histograms of the Candidate Lists sizes, the time spent
+ * in each phase and the usage of each alpha. Counters are {@link LongAdder}s,
+ * so a metrics instance can be shared by the workers of a parallel solve.
+ *
+ * The {@link #DISABLED} instance ignores every update, which then costs a
+ * field read and a branch.
+ */
+public class SolverMetrics {
+
+	/**
+	 * Metrics ignoring every update, used when no metrics are collected.
+	 */
+	public static final SolverMetrics DISABLED = new SolverMetrics(false);
+
+	public enum Counter {
+		/** GRASP iterations run */
+		ITERATIONS,
+		/** GRASP iterations improving the best solution */
+		IMPROVEMENTS,
+		/** constructive heuristic steps */
+		CONSTRUCTIVE_STEPS,
+		/** insertion costs of the constructive steps reused from the previous step */
+		CACHED_INSERTION_COSTS,
+		/** insertion costs evaluated */
+		INSERTION_EVALUATIONS,
+		/** removal costs evaluated */
+		REMOVAL_EVALUATIONS,
+		/** exchange costs evaluated */
+		EXCHANGE_EVALUATIONS,
+		/** local search moves made */
+		ACCEPTED_MOVES,
+		/** best moves of a neighbourhood not made, ending a local search */
+		REJECTED_MOVES,
+		/** moves skipped because tabu */
+		TABU_HITS,
+		/** tabu moves made admissible by the aspiration criterion */
+		ASPIRATIONS,
+		/** time spent in the constructive heuristic */
+		CONSTRUCTION_NANOS,
+		/** time spent in the local search */
+		LOCAL_SEARCH_NANOS,
+		/** local optima improved by path relinking */
+		RELINKING_IMPROVEMENTS,
+		/** time spent in path relinking, including the local search of the relinked solutions */
+		RELINKING_NANOS
+	}
+
+	public enum HistogramType {
+		/** size of the Candidate List at each constructive step */
+		CL_SIZE,
+		/** size of the Restricted Candidate List at each constructive step */
+		RCL_SIZE
+	}
+
+	private final boolean enabled;
+
+	private final LongAdder[] counters = new LongAdder[Counter.values().length];
+
+	private final Histogram[] histograms = new Histogram[HistogramType.values().length];
+
+	/**
+	 * the number of constructions run with each alpha
+	 */
+	private final Map<Double, LongAdder> alphaUsage = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates metrics collecting every update.
+	 */
+	public SolverMetrics() {
+		this(true);
+	}
+
+	private SolverMetrics(boolean enabled) {
+		this.enabled = enabled;
+		for (int i = 0; i < counters.length; i++) {
+			counters[i] = new LongAdder();
+		}
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i] = new Histogram();
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void increment(Counter counter) {
+		if (enabled) {
+			counters[counter.ordinal()].increment();
+		}
+	}
+
+	public void add(Counter counter, long value) {
+		if (enabled && value != 0) {
+			counters[counter.ordinal()].add(value);
+		}
+	}
+
+	public void record(HistogramType histogram, long value) {
+		if (enabled) {
+			histograms[histogram.ordinal()].record(value);
+		}
+	}
+
+	public void recordAlpha(double alpha) {
+		if (enabled) {
+			alphaUsage.computeIfAbsent(alpha, a -> new LongAdder()).increment();
+		}
+	}
+
+	public long get(Counter counter) {
+		return counters[counter.ordinal()].sum();
+	}
+
+	public Histogram get(HistogramType histogram) {
+		return histograms[histogram.ordinal()];
+	}
+
+	/**
+	 * Gives the number of constructions run with each alpha.
+	 *
+	 * @return The constructions per alpha, sorted by alpha.
+	 */
+	public Map<Double, Long> getAlphaUsage() {
+		Map<Double, Long> usage = new TreeMap<>();
+		alphaUsage.forEach((alpha, count) -> usage.put(alpha, count.sum()));
+		return usage;
+	}
+
+	/**
+	 * Takes a snapshot of the counters and histograms summaries, keyed by
+	 * their names in lower case.
+	 *
+	 * @return The current values, in a stable order.
+	 */
+	public Map<String, Long> snapshot() {
+		Map<String, Long> values = new LinkedHashMap<>();
+		for (Counter counter : Counter.values()) {
+			values.put(name(counter), get(counter));
+		}
+		for (HistogramType type : HistogramType.values()) {
+			Histogram histogram = get(type);
+			values.put(name(type) + "_count", histogram.getCount());
+			values.put(name(type) + "_sum", histogram.getSum());
+			values.put(name(type) + "_max", histogram.getMax());
+		}
+		return values;
+	}
+
+	/**
+	 * Samples the metrics periodically, from a daemon thread, until the
+	 * returned sampler is closed.
+	 *
+	 * @param period
+	 *            The time between two samples.
+	 * @param consumer
+	 *            The consumer of the {@link #snapshot()}s.
+	 * @return The sampler, to be closed once the solve ends.
+	 */
+	public AutoCloseable startSampling(Duration period, Consumer<Map<String, Long>> consumer) {
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "solver-metrics-sampler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleAtFixedRate(() -> consumer.accept(snapshot()), period.toNanos(), period.toNanos(), TimeUnit.NANOSECONDS);
+		return scheduler::shutdownNow;
+	}
+
+	/**
+	 * Exports the metrics as a JSON object.
+	 *
+	 * @return The JSON text.
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder("{\n  \"counters\": {");
+		Counter[] allCounters = Counter.values();
+		for (int i = 0; i < allCounters.length; i++) {
+			json.append(i == 0 ? "\n" : ",\n").append("    \"").append(name(allCounters[i])).append("\": ").append(get(allCounters[i]));
+		}
+
+		json.append("\n  },\n  \"histograms\": {");
+		HistogramType[] allHistograms = HistogramType.values();
+		for (int i = 0; i < allHistograms.length; i++) {
+			Histogram histogram = get(allHistograms[i]);
+			json.append(i == 0 ? "\n" : ",\n").append("    \"").append(name(allHistograms[i])).append("\": {")
+					.append("\"count\": ").append(histogram.getCount())
+					.append(", \"sum\": ").append(histogram.getSum())
+					.append(", \"max\": ").append(histogram.getMax())
+					.append(", \"buckets\": {");
+			long[] buckets = histogram.getBuckets();
+			boolean first = true;
+			for (int b = 0; b < buckets.length; b++) {
+				if (buckets[b] > 0) {
+					json.append(first ? "" : ", ").append('"').append(Histogram.bucketUpperBound(b)).append("\": ").append(buckets[b]);
+					first = false;
+				}
+			}
+			json.append("}}");
+		}
+
+		json.append("\n  },\n  \"alphas\": {");
+		boolean first = true;
+		for (Map.Entry<Double, Long> usage : getAlphaUsage().entrySet()) {
+			json.append(first ? "\n" : ",\n").append("    \"").append(formatAlpha(usage.getKey())).append("\": ").append(usage.getValue());
+			first = false;
+		}
+		return json.append("\n  }\n}\n").toString();
+	}
+
+	/**
+	 * Exports the metrics as CSV, one {@code metric,value} row per counter,
+	 * histogram summary and alpha.
+	 *
+	 * @return The CSV text.
+	 */
+	public String toCsv() {
+		StringBuilder csv = new StringBuilder("metric,value\n");
+		for (Map.Entry<String, Long> value : snapshot().entrySet()) {
+			csv.append(value.getKey()).append(',').append(value.getValue()).append('\n');
+		}
+		for (Map.Entry<Double, Long> usage : getAlphaUsage().entrySet()) {
+			csv.append("alpha_").append(formatAlpha(usage.getKey())).append(',').append(usage.getValue()).append('\n');
+		}
+		return csv.toString();
+	}
+
+	private static String name(Enum<?> metric) {
+		return metric.name().toLowerCase(Locale.ROOT);
+	}
+
+	private static String formatAlpha(double alpha) {
+		return String.format(Locale.ROOT, "%.2f", alpha);
+	}
+
+	/**
+	 * Histogram of non negative values, in power of two buckets: bucket 0
+	 * holds 0, and bucket b holds the values in [2^(b-1), 2^b).
+	 */
+	public static class Histogram {
+
+		private final LongAdder[] buckets = new LongAdder[64];
+		private final LongAdder count = new LongAdder();
+		private final LongAdder sum = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		Histogram() {
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] = new LongAdder();
+			}
+		}
+
+		void record(long value) {
+			buckets[64 - Long.numberOfLeadingZeros(Math.max(0, value))].increment();
+			count.increment();
+			sum.add(value);
+			max.accumulate(value);
+		}
+
+		public long getCount() {
+			return count.sum();
+		}
+
+		public long getSum() {
+			return sum.sum();
+		}
+
+		public long getMax() {
+			return max.get();
+		}
+
+		public long[] getBuckets() {
+			long[] values = new long[buckets.length];
+			for (int i = 0; i < buckets.length; i++) {
+				values[i] = buckets[i].sum();
+			}
+			return values;
+		}
+
+		/**
+		 * Gives the upper bound (exclusive) of the values of a bucket.
+		 */
+		static long bucketUpperBound(int bucket) {
+			return bucket == 63 ? Long.MAX_VALUE : 1L << bucket;
+		}
+
+	}
+
+}
@@ -0,0 +1,119 @@
+package grasp.framework;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Tabu List backed by iteration stamps. Each tabu attribute (an element, or any
+ * other attribute of the moves defined by the problem) is identified by an index,
+ * and remains tabu until the tabu search reaches the iteration stamped for it.
+ * Checking and making an attribute tabu are O(1), whatever the tenure.
+ *
+ * Stamping every element entering or leaving the solution with the same tenure
+ * gives the semantics of a FIFO list holding the elements of the last tenure
+ * moves.
+ */
+public class TabuList {
+
+	/**
+	 * the iteration up to which (exclusive) each attribute is tabu
+	 */
+	private final int[] tabuUntilIteration;
+
+	/**
+	 * the current tabu search iteration, i.e. the number of moves made
+	 */
+	private int iteration;
+
+	/**
+	 * Constructor for the TabuList class.
+	 *
+	 * @param attributes
+	 *            The number of tabu attributes.
+	 */
+	public TabuList(int attributes) {
+		this.tabuUntilIteration = new int[attributes];
+	}
+
+	/**
+	 * Checks whether an attribute is tabu at the current iteration.
+	 *
+	 * @param attribute
+	 *            The index of the attribute.
+	 * @return true if the attribute is tabu.
+	 */
+	public boolean isTabu(int attribute) {
+		return tabuUntilIteration[attribute] > iteration;
+	}
+
+	/**
+	 * Makes an attribute tabu for the next iterations. An attribute already tabu
+	 * for longer is left untouched.
+	 *
+	 * @param attribute
+	 *            The index of the attribute.
+	 * @param tenure
+	 *            The number of iterations the attribute is tabu, counting the
+	 *            current one.
+	 */
+	public void makeTabu(int attribute, int tenure) {
+		tabuUntilIteration[attribute] = Math.max(tabuUntilIteration[attribute], iteration + tenure);
+	}
+
+	/**
+	 * Moves to the next iteration, which must be called once per move made.
+	 */
+	public void nextIteration() {
+		iteration++;
+	}
+
+	public int getIteration() {
+		return iteration;
+	}
+
+	/**
+	 * Makes every attribute non tabu and restarts the iterations count.
+	 */
+	public void clear() {
+		Arrays.fill(tabuUntilIteration, 0);
+		iteration = 0;
+	}
+
+	/**
+	 * Writes the iteration and the attributes tabu at it, the others being
+	 * as good as never made tabu.
+	 */
+	void write(DataOutput out) throws IOException {
+		int tabu = 0;
+		for (int until : tabuUntilIteration) {
+			if (until > iteration)
+				tabu++;
+		}
+		out.writeInt(tabuUntilIteration.length);
+		out.writeInt(iteration);
+		out.writeInt(tabu);
+		for (int attribute = 0; attribute < tabuUntilIteration.length; attribute++) {
+			if (tabuUntilIteration[attribute] > iteration) {
+				out.writeInt(attribute);
+				out.writeInt(tabuUntilIteration[attribute]);
+			}
+		}
+	}
+
+	/**
+	 * Restores the state written by {@link #write(DataOutput)}.
+	 */
+	void read(DataInput in) throws IOException {
+		if (in.readInt() != tabuUntilIteration.length)
+			throw new IOException("The tabu list has another number of attributes");
+		clear();
+		iteration = in.readInt();
+		for (int tabu = in.readInt(); tabu > 0; tabu--) {
+			int attribute = in.readInt();
+			tabuUntilIteration[attribute] = in.readInt();
+		}
+	}
+
+}
@@ -0,0 +1,424 @@
+package grasp.problem.ridesharing;
+
+import grasp.framework.SolverMetrics;
+import grasp.framework.SolverMetrics.Counter;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Adaptive Large Neighbourhood Search (Ropke and Pisinger) over the rider to driver
+ * assignments. Each iteration removes some riders from the current solution with a
+ * destroy operator, serves riders again with a repair operator, and accepts the
+ * result by simulated annealing or record-to-record travel.
+ *
+ * The destroy operators remove random riders, the riders whose removal saves the
+ * most, riders travelling close to each other (Shaw removal) or all the riders of a
+ * driver. The repair operators serve, while it lowers the cost, the rider with the
+ * cheapest insertion (greedy) or the one that would lose the most by not being served
+ * now (regret-2 and regret-3), not serving a rider being the fallback of every rider.
+ *
+ * The operators are drawn by roulette wheel, their weights being updated at the end of
+ * each segment of iterations from the scores they earned in it.
+ */
+class AdaptiveLargeNeighbourhoodSearch {
+
+    /**
+     * Scores of the operators of an iteration finding a new best solution, a better
+     * current solution, or an accepted worse solution not visited just before
+     */
+    private static final double NEW_BEST_SCORE = 33;
+    private static final double IMPROVED_SCORE = 9;
+    private static final double ACCEPTED_SCORE = 13;
+
+    private static final int SEGMENT_LENGTH = 50;
+    private static final double REACTION_FACTOR = 0.2;
+
+    /**
+     * Randomness of the worst and related removals: the rider removed is the one at
+     * rank y^p * n of the candidates sorted by preference, y uniform in [0, 1)
+     */
+    private static final double WORST_RANDOMNESS = 3;
+    private static final double RELATED_RANDOMNESS = 6;
+
+    /**
+     * Fractions of the riders served removed by an iteration
+     */
+    private static final double MIN_REMOVED_FRACTION = 0.1;
+    private static final double MAX_REMOVED_FRACTION = 0.4;
+
+    /**
+     * A solution worse by this fraction is first accepted by the simulated annealing
+     * with a probability of 1/2, and the temperature then cools down to
+     * {@link #FINAL_TEMPERATURE_RATIO} of its start. The record-to-record travel
+     * accepts solutions worse than the best one by up to this fraction, shrinking to 0.
+     */
+    private static final double START_WORSENING = 0.05;
+    private static final double FINAL_TEMPERATURE_RATIO = 0.002;
+
+    private static final double EPSILON = 1e-9;
+
+    private static final int RANDOM_REMOVAL = 0;
+    private static final int WORST_REMOVAL = 1;
+    private static final int RELATED_REMOVAL = 2;
+    private static final int DRIVER_REMOVAL = 3;
+    private static final int DESTROY_OPERATORS = 4;
+
+    private static final int GREEDY_REPAIR = 0;
+    private static final int REGRET_2_REPAIR = 1;
+    private static final int REGRET_3_REPAIR = 2;
+    private static final int REPAIR_OPERATORS = 3;
+
+    private final RideSharingEvaluator evaluator;
+    private final int drivers;
+    private final int riders;
+
+    private int iterations = 1000;
+    private int maxIterationsWithoutImprovement = 300;
+    private RideSharingTSGRASP.AlnsAcceptance acceptance = RideSharingTSGRASP.AlnsAcceptance.SIMULATED_ANNEALING;
+
+    /**
+     * Operators weights and the scores and uses of the current segment
+     */
+    private final double[] destroyWeights = new double[DESTROY_OPERATORS];
+    private final double[] destroyScores = new double[DESTROY_OPERATORS];
+    private final int[] destroyUses = new int[DESTROY_OPERATORS];
+    private final double[] repairWeights = new double[REPAIR_OPERATORS];
+    private final double[] repairScores = new double[REPAIR_OPERATORS];
+    private final int[] repairUses = new int[REPAIR_OPERATORS];
+
+    /**
+     * Buffers reused by the operators: riders and their removal preference, the riders
+     * removed, and the insertion deltas of the riders not served, by rider * drivers + driver
+     */
+    private final int[] candidateRiders;
+    private final double[] preferences;
+    private final int[] removedRiders;
+    private final double[] insertionDeltas;
+    private final double[] bestDeltas = new double[3];
+    private long insertions;
+    private long removals;
+
+    AdaptiveLargeNeighbourhoodSearch(RideSharingEvaluator evaluator) {
+        this.evaluator = evaluator;
+        this.drivers = evaluator.drivers;
+        this.riders = evaluator.riders;
+        this.candidateRiders = new int[riders];
+        this.preferences = new double[riders];
+        this.removedRiders = new int[riders];
+        this.insertionDeltas = new double[riders * drivers];
+    }
+
+    /**
+     * @see RideSharingTSGRASP#setAlnsParameters(int, int, RideSharingTSGRASP.AlnsAcceptance)
+     */
+    void setParameters(int iterations, int maxIterationsWithoutImprovement, RideSharingTSGRASP.AlnsAcceptance acceptance) {
+        this.iterations = iterations;
+        this.maxIterationsWithoutImprovement = maxIterationsWithoutImprovement;
+        this.acceptance = acceptance;
+    }
+
+    int getIterations() {
+        return iterations;
+    }
+
+    int getMaxIterationsWithoutImprovement() {
+        return maxIterationsWithoutImprovement;
+    }
+
+    RideSharingTSGRASP.AlnsAcceptance getAcceptance() {
+        return acceptance;
+    }
+
+    /**
+     * Searches from a solution, which is left unchanged.
+     *
+     * @param start the evaluated solution the search starts from.
+     * @param rng the random number generator.
+     * @param shouldStop whether the search must stop early.
+     * @param metrics the metrics of the solve.
+     * @return the best solution found, evaluated.
+     */
+    RideSharingSolution search(RideSharingSolution start, Random rng, BooleanSupplier shouldStop, SolverMetrics metrics) {
+        Arrays.fill(destroyWeights, 1);
+        Arrays.fill(repairWeights, 1);
+        clearSegment();
+        insertions = 0;
+        removals = 0;
+
+        RideSharingSolution current = start.copy();
+        RideSharingSolution best = current.copy();
+        double temperature = START_WORSENING * Math.max(Math.abs(start.cost), 1) / Math.log(2);
+        double cooling = Math.pow(FINAL_TEMPERATURE_RATIO, 1.0 / Math.max(1, iterations));
+        int lastImprovement = 0;
+
+        for (int iteration = 0; iteration < iterations && iteration - lastImprovement <= maxIterationsWithoutImprovement && !shouldStop.getAsBoolean(); iteration++) {
+            int destroyOperator = drawOperator(destroyWeights, rng);
+            int repairOperator = drawOperator(repairWeights, rng);
+            RideSharingSolution candidate = current.copy();
+            destroy(destroyOperator, candidate, rng);
+            repair(repairOperator, candidate);
+            evaluator.evaluate(candidate);
+
+            double score = 0;
+            if (candidate.cost < best.cost - EPSILON) {
+                best = candidate.copy();
+                lastImprovement = iteration;
+                score = NEW_BEST_SCORE;
+            } else if (candidate.getHash() != current.getHash() && isAccepted(candidate.cost, current.cost, best.cost, temperature, iteration, rng)) {
+                score = candidate.cost < current.cost - EPSILON ? IMPROVED_SCORE : ACCEPTED_SCORE;
+            }
+            if (score > 0) {
+                current = candidate;
+                metrics.increment(Counter.ACCEPTED_MOVES);
+            } else {
+                metrics.increment(Counter.REJECTED_MOVES);
+            }
+
+            destroyScores[destroyOperator] += score;
+            destroyUses[destroyOperator]++;
+            repairScores[repairOperator] += score;
+            repairUses[repairOperator]++;
+            if ((iteration + 1) % SEGMENT_LENGTH == 0) {
+                updateWeights(destroyWeights, destroyScores, destroyUses);
+                updateWeights(repairWeights, repairScores, repairUses);
+                clearSegment();
+            }
+            temperature *= cooling;
+        }
+
+        metrics.add(Counter.INSERTION_EVALUATIONS, insertions);
+        metrics.add(Counter.REMOVAL_EVALUATIONS, removals);
+        return best;
+    }
+
+    private boolean isAccepted(double cost, double currentCost, double bestCost, double temperature, int iteration, Random rng) {
+        if (acceptance == RideSharingTSGRASP.AlnsAcceptance.RECORD_TO_RECORD) {
+            double deviation = START_WORSENING * (1 - (double) iteration / iterations);
+            return cost <= bestCost + Math.abs(bestCost) * deviation;
+        }
+        return cost <= currentCost || rng.nextDouble() < Math.exp((currentCost - cost) / temperature);
+    }
+
+    private static int drawOperator(double[] weights, Random rng) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double drawn = rng.nextDouble() * total;
+        for (int operator = 0; operator < weights.length - 1; operator++) {
+            drawn -= weights[operator];
+            if (drawn < 0) {
+                return operator;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static void updateWeights(double[] weights, double[] scores, int[] uses) {
+        for (int operator = 0; operator < weights.length; operator++) {
+            if (uses[operator] > 0) {
+                weights[operator] = (1 - REACTION_FACTOR) * weights[operator] + REACTION_FACTOR * scores[operator] / uses[operator];
+            }
+        }
+    }
+
+    private void clearSegment() {
+        Arrays.fill(destroyScores, 0);
+        Arrays.fill(destroyUses, 0);
+        Arrays.fill(repairScores, 0);
+        Arrays.fill(repairUses, 0);
+    }
+
+    private void destroy(int operator, RideSharingSolution sol, Random rng) {
+        int served = sol.size();
+        if (served == 0) {
+            return;
+        }
+        int minRemoved = Math.max(1, (int) Math.round(MIN_REMOVED_FRACTION * served));
+        int maxRemoved = Math.max(minRemoved, (int) Math.round(MAX_REMOVED_FRACTION * served));
+        int removed = minRemoved + rng.nextInt(maxRemoved - minRemoved + 1);
+
+        switch (operator) {
+            case RANDOM_REMOVAL:
+                for (int i = 0; i < removed; i++) {
+                    sol.unassign(sol.get(rng.nextInt(sol.size())) % riders);
+                }
+                break;
+            case WORST_REMOVAL:
+                removeWorst(sol, removed, rng);
+                break;
+            case RELATED_REMOVAL:
+                removeRelated(sol, removed, rng);
+                break;
+            case DRIVER_REMOVAL:
+                int driver = sol.get(rng.nextInt(sol.size())) / riders;
+                while (sol.getLoad(driver) > 0) {
+                    sol.unassign(sol.getDriverRiders(driver)[0]);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Removes riders one at a time, preferring the ones whose removal saves the most.
+     */
+    private void removeWorst(RideSharingSolution sol, int removed, Random rng) {
+        for (int i = 0; i < removed; i++) {
+            int candidates = sol.size();
+            for (int c = 0; c < candidates; c++) {
+                int elem = sol.get(c);
+                candidateRiders[c] = elem % riders;
+                preferences[c] = evaluator.getRemovalDelta(elem, sol);
+            }
+            removals += candidates;
+            sol.unassign(candidateRiders[pickRanked(candidates, WORST_RANDOMNESS, rng)]);
+        }
+    }
+
+    /**
+     * Removes a random rider, then riders travelling close to a rider already removed.
+     */
+    private void removeRelated(RideSharingSolution sol, int removed, Random rng) {
+        int removedCount = 0;
+        int seed = sol.get(rng.nextInt(sol.size())) % riders;
+        sol.unassign(seed);
+        removedRiders[removedCount++] = seed;
+
+        while (removedCount < removed && sol.size() > 0) {
+            int reference = removedRiders[rng.nextInt(removedCount)];
+            int candidates = sol.size();
+            for (int c = 0; c < candidates; c++) {
+                candidateRiders[c] = sol.get(c) % riders;
+                preferences[c] = evaluator.getRidersDistance(reference, candidateRiders[c]);
+            }
+            int rider = candidateRiders[pickRanked(candidates, RELATED_RANDOMNESS, rng)];
+            sol.unassign(rider);
+            removedRiders[removedCount++] = rider;
+        }
+    }
+
+    /**
+     * Picks a candidate by its rank in increasing order of preference, the rank being
+     * drawn as y^randomness * candidates.
+     *
+     * @return the index of the candidate picked.
+     */
+    private int pickRanked(int candidates, double randomness, Random rng) {
+        int rank = (int) (Math.pow(rng.nextDouble(), randomness) * candidates);
+        // Partial selection sort up to the rank drawn, the candidates being few
+        for (int i = 0; i <= rank; i++) {
+            int lowest = i;
+            for (int j = i + 1; j < candidates; j++) {
+                if (preferences[j] < preferences[lowest]) {
+                    lowest = j;
+                }
+            }
+            swap(i, lowest);
+        }
+        return rank;
+    }
+
+    private void swap(int i, int j) {
+        int rider = candidateRiders[i];
+        candidateRiders[i] = candidateRiders[j];
+        candidateRiders[j] = rider;
+        double preference = preferences[i];
+        preferences[i] = preferences[j];
+        preferences[j] = preference;
+    }
+
+    /**
+     * Serves the riders not served while it lowers the cost, one at a time, repricing
+     * after each insertion only the driver that received the rider. Drivers are never
+     * loaded beyond maxRequests, whatever the constraint mode.
+     */
+    private void repair(int operator, RideSharingSolution sol) {
+        int regret = operator == REGRET_2_REPAIR ? 2 : operator == REGRET_3_REPAIR ? 3 : 1;
+        for (int driver = 0; driver < drivers; driver++) {
+            priceInsertions(sol, driver);
+        }
+
+        while (true) {
+            int bestRider = -1, bestDriver = -1;
+            double bestDelta = 0, bestRegret = Double.NEGATIVE_INFINITY;
+            for (int rider = 0; rider < riders; rider++) {
+                if (sol.isServed(rider)) {
+                    continue;
+                }
+                int riderBestDriver = -1;
+                double riderBestDelta = -EPSILON;
+                for (int driver = 0; driver < drivers; driver++) {
+                    if (insertionDeltas[rider * drivers + driver] < riderBestDelta) {
+                        riderBestDelta = insertionDeltas[rider * drivers + driver];
+                        riderBestDriver = driver;
+                    }
+                }
+                if (riderBestDriver < 0) {
+                    continue;
+                }
+
+                double riderRegret = regret == 1 ? 0 : getRegret(rider, regret);
+                if (riderRegret > bestRegret + EPSILON || (riderRegret > bestRegret - EPSILON && riderBestDelta < bestDelta)) {
+                    bestRider = rider;
+                    bestDriver = riderBestDriver;
+                    bestDelta = riderBestDelta;
+                    bestRegret = riderRegret;
+                }
+            }
+            if (bestRider < 0) {
+                return;
+            }
+
+            sol.assign(bestRider, bestDriver);
+            priceInsertions(sol, bestDriver);
+        }
+    }
+
+    /**
+     * Gives what a rider loses by being served later than now: the sum of the differences
+     * between its k - 1 next best insertions and its best one, not serving it (a delta
+     * of 0) bounding them all.
+     */
+    private double getRegret(int rider, int k) {
+        Arrays.fill(bestDeltas, 0, k, 0);
+        for (int driver = 0; driver < drivers; driver++) {
+            double delta = insertionDeltas[rider * drivers + driver];
+            // Insertion sort into the k lowest deltas
+            for (int j = 0; j < k; j++) {
+                if (delta < bestDeltas[j]) {
+                    double shifted = bestDeltas[j];
+                    bestDeltas[j] = delta;
+                    delta = shifted;
+                }
+            }
+        }
+        double regret = 0;
+        for (int j = 1; j < k; j++) {
+            regret += bestDeltas[j] - bestDeltas[0];
+        }
+        return regret;
+    }
+
+    /**
+     * Prices the insertions of the riders not served in a driver, which are impossible
+     * once the driver serves maxRequests riders, as in the Candidate List. Called again
+     * whenever the load of the driver changes.
+     */
+    private void priceInsertions(RideSharingSolution sol, int driver) {
+        boolean full = sol.getLoad(driver) >= evaluator.maxRequests;
+        for (int rider = 0; rider < riders; rider++) {
+            if (sol.isServed(rider)) {
+                continue;
+            }
+            if (full) {
+                insertionDeltas[rider * drivers + driver] = Double.POSITIVE_INFINITY;
+            } else {
+                insertionDeltas[rider * drivers + driver] = evaluator.getInsertionDelta(driver * riders + rider, sol);
+                insertions++;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,240 @@
+package grasp.problem.ridesharing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader and writer helpers for the run results, which avoid a JSON
+ * dependency. Objects are read as ordered maps, arrays as lists, integral numbers as
+ * longs and the other numbers as doubles.
+ */
+final class Json {
+
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses a JSON value.
+     *
+     * @throws IllegalArgumentException if the text is not valid JSON.
+     */
+    static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.readValue();
+        json.skipWhitespace();
+        if (json.position != text.length()) {
+            throw json.error("Unexpected trailing characters");
+        }
+        return value;
+    }
+
+    /**
+     * Quotes a string as a JSON string literal.
+     */
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private Object readValue() {
+        skipWhitespace();
+        if (position == text.length()) {
+            throw error("Unexpected end of text");
+        }
+        char c = text.charAt(position);
+        switch (c) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                return readLiteral("true", Boolean.TRUE);
+            case 'f':
+                return readLiteral("false", Boolean.FALSE);
+            case 'n':
+                return readLiteral("null", null);
+            default:
+                return readNumber();
+        }
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("Expected a key");
+            }
+            String key = readString();
+            skipWhitespace();
+            expect(':');
+            object.put(key, readValue());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                return object;
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return array;
+        }
+        while (true) {
+            array.add(readValue());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                return array;
+            }
+        }
+    }
+
+    private String readString() {
+        StringBuilder value = new StringBuilder();
+        position++;
+        while (true) {
+            if (position == text.length()) {
+                throw error("Unterminated string");
+            }
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (position == text.length()) {
+                throw error("Unterminated string");
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > text.length()) {
+                        throw error("Truncated unicode escape");
+                    }
+                    value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    position += 4;
+                    break;
+                default:
+                    value.append(escaped);
+            }
+        }
+    }
+
+    private Object readLiteral(String literal, Object value) {
+        if (!text.startsWith(literal, position)) {
+            throw error("Unexpected value");
+        }
+        position += literal.length();
+        return value;
+    }
+
+    private Object readNumber() {
+        int start = position;
+        boolean integral = true;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            integral &= Character.isDigit(text.charAt(position)) || text.charAt(position) == '-';
+            position++;
+        }
+        if (start == position) {
+            throw error("Unexpected character");
+        }
+        String number = text.substring(start, position);
+        try {
+            return integral ? (Object) Long.parseLong(number) : (Object) Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number " + number);
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private char peek() {
+        if (position == text.length()) {
+            throw error("Unexpected end of text");
+        }
+        return text.charAt(position);
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        position++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position);
+    }
+
+}
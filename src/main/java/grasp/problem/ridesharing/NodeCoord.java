@@ -9,6 +9,11 @@ public class NodeCoord {
         this.y = Integer.parseInt(coord[2]);
     }
 
+    public NodeCoord(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
     @Override
     public String toString() {
         return "{" + x + ", " + y + "}";
@@ -0,0 +1,197 @@
+package grasp.problem.ridesharing;
+
+import grasp.framework.AbstractTSGRASP.ConstructiveMethod;
+import grasp.framework.AbstractTSGRASP.LocalSearchMethod;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loads the run results of a directory tree such as {@code solutions/}, for comparison:
+ * <ul>
+ *     <li>JSON Lines files (.jsonl) and CSV files (.csv), as written by {@link ResultSink}
+ *     and by the batch runner reports;</li>
+ *     <li>the text files (.txt) written by the former {@link RideSharingMain}, along with
+ *     the counters and histograms of their {@code _metrics.json} files.</li>
+ * </ul>
+ *
+ * Usage: {@code ResultReader [dir]}, which prints the best and mean cost and the mean
+ * time of each instance and methods, over the runs found in dir (solutions by default).
+ */
+public final class ResultReader {
+
+    private static final Pattern TEXT_HEADER = Pattern.compile("Instance: (\\S+); Constructive Method: (\\S+); LocalSearch Method: (\\S+)");
+    private static final Pattern TEXT_ROUTE = Pattern.compile("D\\d+ - \\[(.*)]");
+    private static final Pattern TEXT_COST = Pattern.compile("Cost: ([0-9.,-]+|Infinity); Time took: (\\d+)ms");
+
+    private ResultReader() {
+    }
+
+    /**
+     * Reads the results of all the files of a directory tree, in the order of their paths.
+     */
+    public static List<RunResult> read(Path dir) throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+
+        List<RunResult> results = new ArrayList<>();
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            try {
+                if (fileName.endsWith(".jsonl")) {
+                    results.addAll(readJsonLines(file));
+                } else if (fileName.endsWith(".csv")) {
+                    results.addAll(readCsv(file));
+                } else if (fileName.endsWith(".txt")) {
+                    results.add(readText(file));
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid results in " + file + ": " + e.getMessage(), e);
+            }
+        }
+        return results;
+    }
+
+    public static List<RunResult> readJsonLines(Path file) throws IOException {
+        List<RunResult> results = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                results.add(RunResult.fromJson(line));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Reads a CSV file whose first line is its header, see {@link RunResult#fromCsv(String, List)}.
+     * A row goes on over the next lines while a quoted field is open.
+     */
+    public static List<RunResult> readCsv(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> header = RunResult.splitCsv(lines.get(0));
+        List<RunResult> results = new ArrayList<>();
+        StringBuilder row = new StringBuilder();
+        for (String line : lines.subList(1, lines.size())) {
+            if (row.length() == 0 && line.isBlank()) {
+                continue;
+            }
+            row.append(line);
+            if (row.chars().filter(c -> c == '"').count() % 2 != 0) {
+                row.append('\n');
+                continue;
+            }
+            results.add(RunResult.fromCsv(row.toString(), header));
+            row.setLength(0);
+        }
+        if (row.length() > 0) {
+            results.add(RunResult.fromCsv(row.toString(), header));
+        }
+        return results;
+    }
+
+    /**
+     * Reads a text file of the former {@link RideSharingMain}, such as:
+     * <pre>
+     * Instance: P_N16; Constructive Method: STANDARD; LocalSearch Method: TABU_SEARCH
+     *
+     * D0 - [1, 1, 0, 0, 1]
+     * D1 - [0, 0, 0, 0, 0]
+     *
+     * Cost: 175,0; Time took: 69ms
+     * </pre>
+     * whose cost was written with the decimal separator of the default locale. The seed
+     * was not recorded.
+     */
+    public static RunResult readText(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Matcher header = null;
+        Matcher cost = null;
+        List<List<Integer>> routes = new ArrayList<>();
+        for (String line : lines) {
+            Matcher matcher;
+            if ((matcher = TEXT_HEADER.matcher(line)).matches()) {
+                header = matcher;
+            } else if ((matcher = TEXT_ROUTE.matcher(line)).matches()) {
+                String[] served = matcher.group(1).split(", ");
+                List<Integer> route = new ArrayList<>();
+                for (int rider = 0; rider < served.length; rider++) {
+                    if (served[rider].trim().equals("1")) {
+                        route.add(rider);
+                    }
+                }
+                routes.add(route);
+            } else if ((matcher = TEXT_COST.matcher(line)).find()) {
+                cost = matcher;
+            }
+        }
+        if (header == null || cost == null) {
+            throw new IllegalArgumentException("Not a result file");
+        }
+
+        return new RunResult(header.group(1), ConstructiveMethod.valueOf(header.group(2)), LocalSearchMethod.valueOf(header.group(3)),
+                RunResult.UNKNOWN_SEED, Double.parseDouble(cost.group(1).replace(',', '.')), Long.parseLong(cost.group(2)),
+                routes, readMetrics(file.resolveSibling(file.getFileName().toString().replaceFirst("\\.txt$", "_metrics.json"))));
+    }
+
+    /**
+     * Reads the counters and histogram summaries of a metrics file, if it exists, under
+     * the names of {@link grasp.framework.SolverMetrics#snapshot()}.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Long> readMetrics(Path file) throws IOException {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return metrics;
+        }
+
+        Map<String, Object> json = (Map<String, Object>) Json.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        ((Map<String, Object>) json.getOrDefault("counters", Collections.emptyMap()))
+                .forEach((name, value) -> metrics.put(name, ((Number) value).longValue()));
+        ((Map<String, Object>) json.getOrDefault("histograms", Collections.emptyMap())).forEach((name, value) -> {
+            Map<String, Object> histogram = (Map<String, Object>) value;
+            for (String summary : Arrays.asList("count", "sum", "max")) {
+                metrics.put(name + "_" + summary, ((Number) histogram.get(summary)).longValue());
+            }
+        });
+        return metrics;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "solutions");
+        List<RunResult> results = read(dir);
+
+        Map<String, List<RunResult>> groups = new TreeMap<>();
+        for (RunResult result : results) {
+            String group = String.join(" ", result.getInstance(), result.getConstructiveMethod().name(), result.getLocalSearchMethod().name());
+            groups.computeIfAbsent(group, key -> new ArrayList<>()).add(result);
+        }
+
+        System.out.println(String.format(Locale.ROOT, "%-60s %5s %10s %10s %10s", "instance constructive_method local_search_method", "runs", "best", "mean", "mean_ms"));
+        groups.forEach((group, runs) -> System.out.println(String.format(Locale.ROOT, "%-60s %5d %10.1f %10.1f %10.0f", group, runs.size(),
+                runs.stream().mapToDouble(RunResult::getCost).min().orElse(Double.NaN),
+                runs.stream().mapToDouble(RunResult::getCost).average().orElse(Double.NaN),
+                runs.stream().mapToLong(RunResult::getTimeMs).average().orElse(Double.NaN))));
+        System.out.println(results.size() + " runs read from " + dir);
+    }
+
+}
@@ -0,0 +1,121 @@
+package grasp.problem.ridesharing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Appends run results to a JSON Lines or CSV file from a background thread, so that
+ * the runs submitting them never wait for the disk. A single sink is meant to be shared
+ * by all the runs of a process: the results are written in the order they are
+ * submitted, through one buffered writer flushed whenever no result is waiting.
+ *
+ * The format is given by the file extension, .csv for CSV and JSON Lines otherwise.
+ * The CSV header is written when the file is created.
+ */
+public class ResultSink implements AutoCloseable {
+
+    /**
+     * Marks the end of the results in the queue
+     */
+    private static final RunResult END = new RunResult("", null, null, 0, 0, 0, Collections.emptyList(), Collections.emptyMap());
+
+    private final Path file;
+    private final boolean csv;
+    private final BlockingQueue<RunResult> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+
+    /**
+     * The first failure to write the results, reported by {@link #close()}
+     */
+    private volatile IOException failure;
+    private boolean closed;
+
+    /**
+     * Opens a sink appending to a file, created with its parent directories if needed.
+     */
+    public ResultSink(Path file) {
+        this.file = file;
+        this.csv = file.getFileName().toString().endsWith(".csv");
+        this.writerThread = new Thread(this::writeResults, "result-sink");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Schedules the writing of a result. Can be called from any thread. Once writing
+     * has failed, the results are dropped and the failure is reported by {@link #close()}.
+     *
+     * @throws IllegalStateException if the sink is closed.
+     */
+    public synchronized void submit(RunResult result) {
+        if (closed) {
+            throw new IllegalStateException("The sink is closed");
+        }
+        if (failure == null) {
+            queue.add(result);
+        }
+    }
+
+    /**
+     * Waits for the results submitted to be written, then closes the file.
+     *
+     * @throws RuntimeException if the results could not be written.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(END);
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+    }
+
+    private void writeResults() {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            boolean newFile = !Files.exists(file) || Files.size(file) == 0;
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (csv && newFile) {
+                    writer.write(RunResult.CSV_HEADER);
+                    writer.write('\n');
+                }
+                while (true) {
+                    RunResult result = queue.take();
+                    if (result == END) {
+                        return;
+                    }
+                    writer.write(csv ? result.toCsvRow() : result.toJson());
+                    writer.write('\n');
+                    if (queue.isEmpty()) {
+                        writer.flush();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+            queue.clear();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,220 @@
+package grasp.problem.ridesharing;
+
+import grasp.framework.AbstractTSGRASP;
+import grasp.framework.AbstractTSGRASP.ConstructiveMethod;
+import grasp.framework.AbstractTSGRASP.LocalSearchMethod;
+import grasp.framework.AbstractTSGRASP.RelinkingMethod;
+import grasp.framework.Solution;
+import grasp.problem.ridesharing.RideSharingEvaluator.ConstraintMode;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the grid of instances, constructive methods, local search methods and
+ * seeds on a bounded pool of workers, and writes every run to a single CSV
+ * report. Each instance file is parsed once, the runs sharing its data through
+ * their own copies of the evaluator.
+ *
+ * The instances default to the ones of {@link Instance}. Any other .vrp files,
+ * with their properties (see {@link VrpInstanceLoader}), may be given instead by
+ * repeating {@code --instance}, and are then reported by their file names.
+ *
+ * The report is written once all the runs are done, in grid order. With
+ * {@code --results path}, each result is also appended to a JSON Lines (or .csv) file
+ * as soon as its run is done, through a {@link ResultSink} shared by the runs.
+ *
+ * With {@code --checkpoints dir}, each run checkpoints its state in that directory
+ * every {@link #CHECKPOINT_INTERVAL}, and a run whose checkpoint is found there is
+ * resumed from it instead of started over, e.g. after the runner was killed. The
+ * time reported for a resumed run only counts the time since it was resumed.
+ *
+ * Usage: {@code RideSharingBatchRunner [--workers n] [--seeds n] [--iterations n]
+ * [--time PT5M] [--alpha a] [--tenure n] [--constraints IGNORE|REJECT|PENALISE]
+ * [--violation-penalty p] [--relinking NONE|FORWARD|BACKWARD|MIXED] [--elite-size n]
+ * [--report path] [--results path] [--checkpoints dir] [--instance path]...}
+ */
+public class RideSharingBatchRunner {
+
+    /**
+     * Minimum number of riders assigned differently between the members of a full elite pool
+     */
+    private static final int MIN_ELITE_DISTANCE = 3;
+
+    private static final Duration CHECKPOINT_INTERVAL = Duration.ofSeconds(30);
+
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int seeds = 1;
+    private int iterations = 100;
+    private Duration maxExecutionTime = Duration.ofMinutes(5);
+    private double alpha = 0.15;
+    private int tenure = 10;
+    private ConstraintMode constraintMode = ConstraintMode.IGNORE;
+    private double violationPenalty = 10;
+    private RelinkingMethod relinkingMethod = RelinkingMethod.NONE;
+    private int eliteSize = 10;
+    private Path report = Paths.get("solutions/report.csv");
+    private Path checkpoints;
+    private Path results;
+
+    private final Map<String, Path> instances = new LinkedHashMap<>();
+    private final List<ConstructiveMethod> constructiveMethods = Arrays.asList(ConstructiveMethod.values());
+    private final List<LocalSearchMethod> localSearchMethods = Arrays.asList(LocalSearchMethod.values());
+
+    public static void main(String[] args) throws IOException {
+        RideSharingBatchRunner runner = new RideSharingBatchRunner();
+        List<Path> instanceFiles = new ArrayList<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--workers":
+                    runner.workers = Integer.parseInt(value);
+                    break;
+                case "--seeds":
+                    runner.seeds = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    runner.iterations = Integer.parseInt(value);
+                    break;
+                case "--time":
+                    runner.maxExecutionTime = Duration.parse(value);
+                    break;
+                case "--alpha":
+                    runner.alpha = Double.parseDouble(value);
+                    break;
+                case "--tenure":
+                    runner.tenure = Integer.parseInt(value);
+                    break;
+                case "--constraints":
+                    runner.constraintMode = ConstraintMode.valueOf(value);
+                    break;
+                case "--violation-penalty":
+                    runner.violationPenalty = Double.parseDouble(value);
+                    break;
+                case "--relinking":
+                    runner.relinkingMethod = RelinkingMethod.valueOf(value);
+                    break;
+                case "--elite-size":
+                    runner.eliteSize = Integer.parseInt(value);
+                    break;
+                case "--report":
+                    runner.report = Paths.get(value);
+                    break;
+                case "--results":
+                    runner.results = Paths.get(value);
+                    break;
+                case "--checkpoints":
+                    runner.checkpoints = Paths.get(value);
+                    break;
+                case "--instance":
+                    instanceFiles.add(Paths.get(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        if (instanceFiles.isEmpty()) {
+            for (Instance instance : Instance.values()) {
+                runner.instances.put(instance.name(), Paths.get(instance.getFilename()));
+            }
+        } else {
+            for (Path instanceFile : instanceFiles) {
+                String fileName = instanceFile.getFileName().toString();
+                runner.instances.put(fileName.replaceFirst("\\.vrp$", ""), instanceFile);
+            }
+        }
+        runner.run();
+    }
+
+    /**
+     * Runs the whole grid, then writes the report in grid order.
+     */
+    public void run() throws IOException {
+        AbstractTSGRASP.verbose = false;
+
+        Map<String, RideSharingEvaluator> parsedInstances = new LinkedHashMap<>();
+        instances.forEach((instance, instanceFile) -> parsedInstances.put(instance, new RideSharingEvaluator(instanceFile)));
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        List<Future<RunResult>> rows = new ArrayList<>();
+        ResultSink sink = results == null ? null : new ResultSink(results);
+        try {
+            for (String instance : instances.keySet()) {
+                for (ConstructiveMethod constructiveMethod : constructiveMethods) {
+                    for (LocalSearchMethod localSearchMethod : localSearchMethods) {
+                        for (int seed = 0; seed < seeds; seed++) {
+                            RideSharingEvaluator parsed = parsedInstances.get(instance);
+                            int runSeed = seed;
+                            rows.add(pool.submit(() -> runCell(instance, parsed, constructiveMethod, localSearchMethod, runSeed, sink)));
+                        }
+                    }
+                }
+            }
+
+            Files.createDirectories(report.toAbsolutePath().getParent());
+            try (Writer writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+                writer.write(RunResult.CSV_HEADER + "\n");
+                for (Future<RunResult> row : rows) {
+                    writer.write(row.get().toCsvRow() + "\n");
+                    writer.flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+            if (sink != null) {
+                sink.close();
+            }
+        }
+
+        System.out.println("Report written to " + report + " (" + rows.size() + " runs)");
+    }
+
+    private RunResult runCell(String instance, RideSharingEvaluator parsed, ConstructiveMethod constructiveMethod, LocalSearchMethod localSearchMethod, int seed, ResultSink sink) {
+        RideSharingEvaluator evaluator = new RideSharingEvaluator(parsed);
+        evaluator.setConstraints(constraintMode, violationPenalty);
+        RideSharingTSGRASP rideSharingTSGRASP = new RideSharingTSGRASP(alpha, iterations, maxExecutionTime, evaluator, tenure);
+        rideSharingTSGRASP.setSeed(seed);
+        rideSharingTSGRASP.setPathRelinking(relinkingMethod, eliteSize, MIN_ELITE_DISTANCE);
+
+        Path checkpoint = null;
+        if (checkpoints != null) {
+            checkpoint = checkpoints.resolve(String.join("_", instance, constructiveMethod.name(), localSearchMethod.name(), Integer.toString(seed)) + ".ckpt");
+            rideSharingTSGRASP.setCheckpointing(checkpoint, CHECKPOINT_INTERVAL);
+        }
+
+        long started = System.nanoTime();
+        Solution<Integer> solution = checkpoint != null && Files.exists(checkpoint)
+                ? rideSharingTSGRASP.resume(checkpoint, constructiveMethod, localSearchMethod, "3")
+                : rideSharingTSGRASP.solve(constructiveMethod, localSearchMethod, "3");
+        long time = (System.nanoTime() - started) / 1_000_000;
+        evaluator.evaluate(solution);
+
+        RunResult result = RunResult.of(instance, constructiveMethod, localSearchMethod, seed, evaluator, solution, time, Collections.emptyMap());
+        if (sink != null) {
+            sink.submit(result);
+        }
+        return result;
+    }
+
+}
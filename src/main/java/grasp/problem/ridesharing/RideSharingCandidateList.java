@@ -0,0 +1,236 @@
+package grasp.problem.ridesharing;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Candidate List of the ride sharing problem, backed by a bitset over the domain
+ * (element = driver * riders + rider). An element is a candidate while its rider is
+ * not served and its driver has not reached the max requests.
+ *
+ * Once bound to a solution, the list listens to the solution assignments and keeps
+ * itself up to date: serving a rider only clears that rider column and, when the
+ * driver becomes saturated, that driver row. Candidates can be iterated without any
+ * allocation through {@link #nextCandidate(int)}.
+ */
+public class RideSharingCandidateList extends AbstractSet<Integer> implements RideSharingSolution.AssignmentListener {
+
+    private final int drivers;
+    private final int riders;
+    private final int maxRequests;
+
+    /**
+     * Boxed elements of the domain, shared by all the solutions of the instance
+     */
+    private final Integer[] elements;
+
+    private final long[] words;
+    private int size;
+
+    /**
+     * The solution the list is kept consistent with
+     */
+    private RideSharingSolution boundSol;
+
+    public RideSharingCandidateList(int drivers, int riders, int maxRequests, Integer[] elements) {
+        this.drivers = drivers;
+        this.riders = riders;
+        this.maxRequests = maxRequests;
+        this.elements = elements;
+        this.words = new long[(drivers * riders + 63) >>> 6];
+        setRange(0, drivers * riders);
+    }
+
+    /**
+     * Makes the list consistent with the solution and keeps it so as the solution
+     * changes. Binding again to the same solution is a no-op.
+     *
+     * @param sol the solution whose candidates are listed.
+     */
+    public void bind(RideSharingSolution sol) {
+        if (sol == boundSol) {
+            return;
+        }
+        if (boundSol != null) {
+            boundSol.setAssignmentListener(null);
+        }
+
+        clear();
+        setRange(0, drivers * riders);
+        for (int rider = 0; rider < riders; rider++) {
+            if (sol.isServed(rider)) {
+                clearColumn(rider);
+            }
+        }
+        for (int driver = 0; driver < drivers; driver++) {
+            if (sol.getLoad(driver) >= maxRequests) {
+                clearRow(driver);
+            }
+        }
+
+        boundSol = sol;
+        sol.setAssignmentListener(this);
+    }
+
+    @Override
+    public void assigned(int rider, int driver) {
+        clearColumn(rider);
+        if (boundSol.getLoad(driver) >= maxRequests) {
+            clearRow(driver);
+        }
+    }
+
+    @Override
+    public void unassigned(int rider, int driver) {
+        if (boundSol.getLoad(driver) == maxRequests - 1) {
+            // The driver is no longer saturated, every rider not served is a candidate again
+            for (int r = 0; r < riders; r++) {
+                if (!boundSol.isServed(r)) {
+                    set(driver * riders + r);
+                }
+            }
+        }
+        for (int d = 0; d < drivers; d++) {
+            if (boundSol.getLoad(d) < maxRequests) {
+                set(d * riders + rider);
+            }
+        }
+    }
+
+    /**
+     * Gives the first candidate greater than or equal to an element, allowing the
+     * list to be iterated as {@code for (int c = nextCandidate(0); c >= 0; c = nextCandidate(c + 1))}.
+     *
+     * @param from the element to start searching from.
+     * @return the next candidate, or -1 if there is none.
+     */
+    public int nextCandidate(int from) {
+        int wordIndex = from >>> 6;
+        if (wordIndex >= words.length) {
+            return -1;
+        }
+
+        long word = words[wordIndex] & (-1L << from);
+        while (word == 0) {
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+        return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    public boolean isCandidate(int elem) {
+        return (words[elem >>> 6] & (1L << elem)) != 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Integer)) {
+            return false;
+        }
+        int elem = (Integer) o;
+        return elem >= 0 && elem < drivers * riders && isCandidate(elem);
+    }
+
+    @Override
+    public boolean add(Integer elem) {
+        return set(elem);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return contains(o) && unset((Integer) o);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < words.length; i++) {
+            words[i] = 0;
+        }
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int next = nextCandidate(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Integer next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = nextCandidate(next + 1);
+                return elements[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                unset(last);
+                last = -1;
+            }
+        };
+    }
+
+    private boolean set(int elem) {
+        long mask = 1L << elem;
+        int wordIndex = elem >>> 6;
+        if ((words[wordIndex] & mask) != 0) {
+            return false;
+        }
+        words[wordIndex] |= mask;
+        size++;
+        return true;
+    }
+
+    private boolean unset(int elem) {
+        long mask = 1L << elem;
+        int wordIndex = elem >>> 6;
+        if ((words[wordIndex] & mask) == 0) {
+            return false;
+        }
+        words[wordIndex] &= ~mask;
+        size--;
+        return true;
+    }
+
+    private void setRange(int from, int to) {
+        for (int elem = from; elem < to; elem++) {
+            set(elem);
+        }
+    }
+
+    private void clearColumn(int rider) {
+        for (int elem = rider; elem < drivers * riders; elem += riders) {
+            unset(elem);
+        }
+    }
+
+    private void clearRow(int driver) {
+        int from = driver * riders;
+        int to = from + riders;
+        int elem = nextCandidate(from);
+        while (elem >= 0 && elem < to) {
+            unset(elem);
+            elem = nextCandidate(elem + 1);
+        }
+    }
+
+}
@@ -1,27 +1,30 @@
 package grasp.problem.ridesharing;
 
+import grasp.framework.AbstractTSGRASP;
 import grasp.framework.Evaluator;
 import grasp.framework.Solution;
 
-import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class RideSharingEvaluator  implements Evaluator<Integer> {
-    private static final int METADATA_HEADER_OFFSET = 7;
-    private static final int DIMENSION_OFFSET = 12;
-    private static final int CAPACITY_OFFSET = 11;
+
+    /**
+     * Default number of route costs cached by an evaluator
+     */
+    public static final int DEFAULT_ROUTE_COST_CACHE_CAPACITY = 1 << 16;
 
     /**
      * Problem generic variables
      */
     public Integer domainSize;
-    public List<List<Integer>> driverServingRidersVariable;
 
     /**
      * Riders related variables
@@ -41,328 +44,566 @@ public class RideSharingEvaluator  implements Evaluator<Integer> {
     public int maxDrivingTime;
     public double penalty;
 
-    public RideSharingEvaluator(Instance instance) {
-        driverServingRidersVariable = new ArrayList<>();
-        readInput(instance);
-    }
+    /**
+     * Distance related variables. Every coordinate of the instance file is a node, and
+     * the distances between all pairs of nodes are computed only once, when the instance
+     * is loaded (or read from its cache). The matrix is stored flat, row by row.
+     */
+    public int nodes;
+    private long[] distanceMatrix;
+    private int[] driversOriginNodes;
+    private int[] driversDestinationNodes;
+    private int[] ridersOriginNodes;
+    private int[] ridersDestinationNodes;
 
-    @Override
-    public Integer getDomainSize() {
-        return domainSize;
-    }
+    /**
+     * Rank of the driver of each element among the drivers nearest to its rider, by
+     * the distance between their origins (0 for the nearest driver)
+     */
+    private int[] driverRanks;
 
-    @Override
-    public Double evaluate(Solution<Integer> sol) {
-        int penaltiesNeeded = riders - sol.size();
-        double penaltyCost = penaltiesNeeded * penalty;
-        driverServingRidersVariable = getRidersPerDriverLists(sol);
-
-        int rideCosts = 0;
-        List<List<NodeCoord>> allRoutes = new ArrayList<>();
-        for (int i = 0; i < driverServingRidersVariable.size(); i++) {
-            List<Integer> driverRiders = driverServingRidersVariable.get(i);
-            List<NodeCoord> driverRoute = new ArrayList<>();
-            List<NodeCoord> driverRouteDestinations = new ArrayList<>();
-
-            driverRoute.add(driversOriginCoords.get(i));
-            for (int j = 0; j < driverRiders.size(); j++) {
-                if (driverRiders.get(j) > 0) {
-                    driverRoute.add(ridersOriginCoords.get(j));
-                    if (!driverRouteDestinations.contains(ridersDestinationCoords.get(j))) {
-                        driverRouteDestinations.add(ridersDestinationCoords.get(j));
-                    }
-                }
-            }
+    /**
+     * Sequencer of the stops of the routes, and buffers reused to hold the nodes of the
+     * riders of a route
+     */
+    private RouteSequencer routeSequencer;
+    private int[] pickupNodes;
+    private int[] dropoffNodes;
 
-            driverRoute.addAll(driverRouteDestinations);
-            if (!driverRoute.contains(driversDestinationCoords.get(i))) {
-                driverRoute.add(driversDestinationCoords.get(i));
-            }
-            allRoutes.add(driverRoute);
-        }
+    /**
+     * Route costs memoised by driver and set of riders, keyed by the driver index followed
+     * by the bitmask of the riders. Only used when both fit a long, and the cache capacity
+     * is not 0.
+     */
+    private boolean routeCostsMemoised;
+    private int routeCostCacheCapacity = DEFAULT_ROUTE_COST_CACHE_CAPACITY;
+    private RouteCostCache routeCostCache;
 
-        for (List<NodeCoord> route : allRoutes) {
-            for (int i = 0; i < route.size() - 1; i++) {
-                NodeCoord currentOrigin = route.get(i);
-                NodeCoord currentDestination = route.get(i+1);
+    /**
+     * Boxed elements of the domain, shared by all the solutions of the instance
+     */
+    private Integer[] domainElements;
 
-                rideCosts += currentOrigin.getDistanceFrom(currentDestination);
-            }
-        }
+    /**
+     * Random keys of the elements of the domain, used to hash solutions
+     */
+    private long[] domainElementKeys;
 
-        double cost = rideCosts + penaltyCost;
-        sol.cost = cost;
-        return cost;
-    }
+    /**
+     * Buffer reused to hold the riders of a driver after a move is applied
+     */
+    private int[] candidateRiders;
 
-    public List<List<Integer>> getRidersPerDriverLists(Solution<Integer> sol) {
-        List<List<Integer>> driversDecisionVariables = new ArrayList<>();
-        IntStream.range(0, drivers).forEach(ign -> {
-            driversDecisionVariables.add(new ArrayList<>(Collections.nCopies(riders, 0))); // Drivers start not serving any riders
-        });
+    /**
+     * Solution reused to evaluate the solutions that are not ride sharing solutions
+     */
+    private RideSharingSolution convertedSol;
 
-        for (Integer item : sol) {
-            int rider = item % riders;
-            int driver = item / riders;
-            driversDecisionVariables.get(driver).set(rider, 1);
-        }
+    /**
+     * How the maxDrivingTime and maxRequests limits of the routes are enforced, and the cost
+     * of each unit by which a route exceeds them when they are penalised
+     */
+    private ConstraintMode constraintMode = ConstraintMode.IGNORE;
+    private double violationPenalty;
 
-        return driversDecisionVariables;
+    public RideSharingEvaluator(Instance instance) {
+        this(Paths.get(instance.getFilename()));
     }
 
-    @Override
-    public Double evaluateInsertionCost(Integer elem, Solution<Integer> sol) {
-        Double currentCost = evaluate(sol);
-        Solution<Integer> newSol = new Solution<>(sol);
-        newSol.add(elem);
+    /**
+     * Creates an evaluator of any .vrp instance file, whose drivers and riders are
+     * given by the properties file next to it (see {@link VrpInstanceLoader}).
+     *
+     * @param vrpFile the instance file.
+     */
+    public RideSharingEvaluator(Path vrpFile) {
+        this(VrpInstanceLoader.load(vrpFile));
+    }
 
-        return evaluate(newSol) - currentCost;
+    public RideSharingEvaluator(RideSharingInstance instance) {
+        loadInstance(instance);
     }
 
-    @Override
-    public Double evaluateRemovalCost(Integer elem, Solution<Integer> sol) {
-        Double currentCost = evaluate(sol);
-        Solution<Integer> newSol = new Solution<>(sol);
-        newSol.remove(elem);
+    /**
+     * Creates an evaluator of the same instance, sharing all the instance data with the
+     * given one but with its own buffers, so that each thread can use its own evaluator.
+     *
+     * @param evaluator the evaluator whose instance is shared.
+     */
+    public RideSharingEvaluator(RideSharingEvaluator evaluator) {
+        domainSize = evaluator.domainSize;
+        riders = evaluator.riders;
+        ridersOriginCoords.addAll(evaluator.ridersOriginCoords);
+        ridersDestinationCoords.addAll(evaluator.ridersDestinationCoords);
+        drivers = evaluator.drivers;
+        driversOriginCoords.addAll(evaluator.driversOriginCoords);
+        driversDestinationCoords.addAll(evaluator.driversDestinationCoords);
+        maxRequests = evaluator.maxRequests;
+        maxDrivingTime = evaluator.maxDrivingTime;
+        penalty = evaluator.penalty;
+
+        nodes = evaluator.nodes;
+        distanceMatrix = evaluator.distanceMatrix;
+        driversOriginNodes = evaluator.driversOriginNodes;
+        driversDestinationNodes = evaluator.driversDestinationNodes;
+        ridersOriginNodes = evaluator.ridersOriginNodes;
+        ridersDestinationNodes = evaluator.ridersDestinationNodes;
+        driverRanks = evaluator.driverRanks;
+        domainElements = evaluator.domainElements;
+        domainElementKeys = evaluator.domainElementKeys;
+        constraintMode = evaluator.constraintMode;
+        violationPenalty = evaluator.violationPenalty;
+        routeCostCacheCapacity = evaluator.routeCostCacheCapacity;
+        allocateBuffers();
+    }
 
-        return evaluate(newSol) - currentCost;
+    /**
+     * Bounds the number of route costs cached by the evaluator, dropping the ones cached
+     * so far. Evaluators copied from this one afterwards get caches of the same capacity.
+     *
+     * @param capacity the maximum number of cached route costs, 0 not to cache them.
+     */
+    public void setRouteCostCacheCapacity(int capacity) {
+        routeCostCacheCapacity = capacity;
+        routeCostsMemoised = isRouteCostMemoisable();
+        routeCostCache = new RouteCostCache(capacity);
     }
 
-    @Override
-    public Double evaluateExchangeCost(Integer elemIn, Integer elemOut, Solution<Integer> sol) {
-        Double currentCost = evaluate(sol);
-        Solution<Integer> newSol = new Solution<>(sol);
-        newSol.remove(elemOut);
-        newSol.add(elemIn);
+    public int getRouteCostCacheCapacity() {
+        return routeCostCacheCapacity;
+    }
 
-        return evaluate(newSol) - currentCost;
+    /**
+     * @return the number of route costs found in the cache.
+     */
+    public long getRouteCostCacheHits() {
+        return routeCostCache.getHits();
+    }
+
+    /**
+     * @return the number of route costs looked up but not found in the cache.
+     */
+    public long getRouteCostCacheMisses() {
+        return routeCostCache.getMisses();
     }
 
-    private void readInput(Instance instance) {
-        try {
-            List<String> allLines = Files.readAllLines(Paths.get(instance.getFilename()));
+    /**
+     * Sets how the limits of the routes are enforced. The driving time of a route is the
+     * distance it travels, limited by maxDrivingTime, and the riders it serves are limited by
+     * maxRequests. A route violates its limits by the sum of both excesses. Evaluators copied
+     * from this one afterwards share the setting.
+     *
+     * @param constraintMode the enforcement of the limits.
+     * @param violationPenalty the cost of each unit of violation, when penalised.
+     */
+    public void setConstraints(ConstraintMode constraintMode, double violationPenalty) {
+        this.constraintMode = constraintMode;
+        this.violationPenalty = violationPenalty;
+    }
 
-            List<NodeCoord> allCoords = new ArrayList<>();
-            Integer dimension = getDimensionSize(allLines);
+    public ConstraintMode getConstraintMode() {
+        return constraintMode;
+    }
 
-            for (int i = METADATA_HEADER_OFFSET; i < METADATA_HEADER_OFFSET + dimension; i++) {
-                String[] values = allLines.get(i).split("\\s");
-                allCoords.add(new NodeCoord(values));
-            }
+    public double getViolationPenalty() {
+        return violationPenalty;
+    }
 
-            // Using scenario described in Table 2. Drivers and Riders having different origins and destinations
-            switch (instance) {
-                case P_N16:
-                    read16(allCoords);
-                    break;
-                case A_N32:
-                    read32(allCoords);
-                    break;
-                case A_N44:
-                    read44(allCoords);
-                    break;
-                default:
-                    throw new RuntimeException("INSTANCE INPUT NOT IMPLEMENTED YET FOR " + instance);
-            }
+    @Override
+    public Integer getDomainSize() {
+        return domainSize;
+    }
 
-            System.out.println("domainSize: " + domainSize);
-            System.out.println("penalty: " + penalty);
-            System.out.println("Coords: " + allCoords);
-            System.out.println("Riders: " + riders);
-            System.out.println("Riders Origin Coords: " + ridersOriginCoords);
-            System.out.println("Riders Destination Coords: " + ridersDestinationCoords);
-
-            System.out.println("Drivers: " + drivers);
-            System.out.println("Max Driving Time: " + maxDrivingTime);
-            System.out.println("Max Requests Per Driver: " + maxRequests);
-            System.out.println("Drivers Origin Coords: " + driversOriginCoords);
-            System.out.println("Drivers Destination Coords: " + driversDestinationCoords);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    @Override
+    public Double evaluate(Solution<Integer> sol) {
+        RideSharingSolution rideSharingSol = asRideSharingSolution(sol);
+        updateRouteCosts(rideSharingSol);
+        double cost = rideSharingSol.getRoutesCost() + (riders - rideSharingSol.size()) * penalty;
+        if (constraintMode == ConstraintMode.PENALISE) {
+            cost += violationPenalty * rideSharingSol.getRoutesViolation();
         }
+        sol.cost = cost;
+        sol.usedCapacity = rideSharingSol.size();
+        return cost;
     }
 
-    private void read16(List<NodeCoord> allCoords) {
-        drivers = 3;
-        riders = 5;
-        maxRequests = 4;
-        maxDrivingTime = 110;
-        penalty = 100.0;
+    /**
+     * Gives the total amount by which the routes of a solution exceed their limits.
+     *
+     * @param sol the solution.
+     * @return the violation of the solution, 0 if it is feasible.
+     */
+    public long getViolation(Solution<Integer> sol) {
+        RideSharingSolution rideSharingSol = asRideSharingSolution(sol);
+        updateRouteCosts(rideSharingSol);
+        return rideSharingSol.getRoutesViolation();
+    }
 
-        domainSize = drivers * riders;
-        loadDriverAndRiderCoordsFor16(allCoords);
+    public boolean isFeasible(Solution<Integer> sol) {
+        return getViolation(sol) == 0;
+    }
 
-        IntStream.range(0, drivers).forEach(ign ->
-            driverServingRidersVariable.add(new ArrayList<>(Collections.nCopies(riders, 0))) // Drivers start not serving any riders
-        );
+    /**
+     * Gives the boxed elements of the domain, shared by all the structures of the
+     * instance so that they never box elements themselves.
+     */
+    Integer[] getDomainElements() {
+        return domainElements;
     }
 
-    private void loadDriverAndRiderCoordsFor16(List<NodeCoord> allCoords) {
-        driversOriginCoords.add(allCoords.get(0));
-        driversOriginCoords.add(allCoords.get(1));
-        driversOriginCoords.add(allCoords.get(2));
+    /**
+     * Creates a new solution in which no rider is served.
+     *
+     * @return an empty solution of the instance.
+     */
+    public RideSharingSolution createEmptySolution() {
+        return new RideSharingSolution(drivers, riders, domainElements, domainElementKeys);
+    }
 
-        driversDestinationCoords.add(allCoords.get(3));
-        driversDestinationCoords.add(allCoords.get(4));
-        driversDestinationCoords.add(allCoords.get(5));
+    /**
+     * Gives the ride sharing view of a solution. Solutions created elsewhere than
+     * {@link #createEmptySolution()} are copied into a solution reused from a call to
+     * the next, so the view is only valid until the next call.
+     */
+    private RideSharingSolution asRideSharingSolution(Solution<Integer> sol) {
+        if (sol instanceof RideSharingSolution) {
+            return (RideSharingSolution) sol;
+        }
 
-        ridersOriginCoords.add(allCoords.get(6));
-        ridersOriginCoords.add(allCoords.get(7));
-        ridersOriginCoords.add(allCoords.get(8));
-        ridersOriginCoords.add(allCoords.get(9));
-        ridersOriginCoords.add(allCoords.get(10));
+        convertedSol.clear();
+        for (int i = 0; i < sol.size(); i++) {
+            convertedSol.add(sol.get(i));
+        }
+        return convertedSol;
+    }
 
-        ridersDestinationCoords.add(allCoords.get(11));
-        ridersDestinationCoords.add(allCoords.get(12));
-        ridersDestinationCoords.add(allCoords.get(13));
-        ridersDestinationCoords.add(allCoords.get(14));
-        ridersDestinationCoords.add(allCoords.get(15));
+    /**
+     * Reprices the route of every driver of the solution whose riders changed since
+     * its last evaluation.
+     */
+    private void updateRouteCosts(RideSharingSolution sol) {
+        while (sol.getStaleDriversCount() > 0) {
+            int driver = sol.popStaleDriver();
+            long routeCost = getRouteCost(driver, sol.getDriverRiders(driver), sol.getLoad(driver));
+            sol.setRouteCost(driver, routeCost, getViolation(routeCost, sol.getLoad(driver)));
+        }
     }
 
-    private void read32(List<NodeCoord> allCoords) {
-        drivers = 5;
-        riders = 26;
-        maxRequests = 4;
-        maxDrivingTime = 110;
-        penalty = 100.0;
+    /**
+     * Computes by how much a route exceeds the driving time and capacity limits.
+     */
+    private long getViolation(long routeCost, int load) {
+        return Math.max(0, routeCost - maxDrivingTime) + Math.max(0, load - maxRequests);
+    }
 
-        domainSize = drivers * riders;
-        loadDriverAndRiderCoordsFor32(allCoords);
+    /**
+     * Computes the change of the cost of a driver route when removing and/or adding a rider,
+     * checking the limits of the route against its cached violation, so that enforcing them
+     * costs no more than the repricing itself. Moves increasing the violation of the route are
+     * infeasible when the limits are rejected, so routes already violating them (e.g. an empty
+     * route longer than maxDrivingTime) can still be repaired.
+     *
+     * @param sol the solution the driver belongs to.
+     * @param driver the driver being repriced.
+     * @param removedRider the rider leaving the route, or -1 if none.
+     * @param addedRider the rider entering the route, or -1 if none.
+     * @return the change of the cost of the route, infinite if the move is rejected.
+     */
+    private double getRouteDelta(RideSharingSolution sol, int driver, int removedRider, int addedRider) {
+        long routeCost = getRouteCostAfterMove(sol, driver, removedRider, addedRider);
+        double delta = routeCost - sol.getRouteCost(driver);
+        if (constraintMode == ConstraintMode.IGNORE) {
+            return delta;
+        }
 
-        IntStream.range(0, drivers).forEach(ign ->
-            driverServingRidersVariable.add(new ArrayList<>(Collections.nCopies(riders, 0))) // Drivers start not serving any riders
-        );
+        int load = sol.getLoad(driver) + (addedRider >= 0 ? 1 : 0) - (removedRider >= 0 ? 1 : 0);
+        long violationDelta = getViolation(routeCost, load) - sol.getViolation(driver);
+        if (constraintMode == ConstraintMode.REJECT) {
+            return violationDelta > 0 ? Double.POSITIVE_INFINITY : delta;
+        }
+        return delta + violationPenalty * violationDelta;
     }
 
-    private void loadDriverAndRiderCoordsFor32(List<NodeCoord> allCoords) {
-        NodeCoord commonDestination = allCoords.get(31);
+    /**
+     * Computes the cost of the route of a driver: the shortest route found from its origin
+     * to its destination through the origins and destinations of the riders it serves,
+     * each rider being picked up before being dropped off (see {@link RouteSequencer}).
+     * Costs are memoised by driver and set of riders.
+     *
+     * @param driver the driver whose route is being computed.
+     * @param servedRiders the riders served by the driver, sorted by index.
+     * @param load the number of riders served by the driver.
+     * @return the total distance of the driver route.
+     */
+    private long getRouteCost(int driver, int[] servedRiders, int load) {
+        long key = 0;
+        if (routeCostsMemoised) {
+            key = (long) driver << riders;
+            for (int j = 0; j < load; j++) {
+                key |= 1L << servedRiders[j];
+            }
+            long cached = routeCostCache.get(key);
+            if (cached >= 0) {
+                return cached;
+            }
+        }
 
-        driversOriginCoords.add(allCoords.get(0));
-        driversOriginCoords.add(allCoords.get(1));
-        driversOriginCoords.add(allCoords.get(2));
-        driversOriginCoords.add(allCoords.get(3));
-        driversOriginCoords.add(allCoords.get(4));
+        for (int j = 0; j < load; j++) {
+            pickupNodes[j] = ridersOriginNodes[servedRiders[j]];
+            dropoffNodes[j] = ridersDestinationNodes[servedRiders[j]];
+        }
+        long cost = routeSequencer.sequence(driversOriginNodes[driver], driversDestinationNodes[driver], pickupNodes, dropoffNodes, load);
 
-        ridersOriginCoords.add(allCoords.get(5));
-        ridersOriginCoords.add(allCoords.get(6));
-        ridersOriginCoords.add(allCoords.get(7));
-        ridersOriginCoords.add(allCoords.get(8));
-        ridersOriginCoords.add(allCoords.get(9));
+        if (routeCostsMemoised) {
+            routeCostCache.put(key, cost);
+        }
+        return cost;
+    }
 
-        ridersOriginCoords.add(allCoords.get(10));
-        ridersOriginCoords.add(allCoords.get(11));
-        ridersOriginCoords.add(allCoords.get(12));
-        ridersOriginCoords.add(allCoords.get(13));
-        ridersOriginCoords.add(allCoords.get(14));
+    /**
+     * Computes the route cost of a driver after removing and/or adding a rider to the
+     * riders it currently serves in the solution.
+     *
+     * @param sol the solution the driver belongs to.
+     * @param driver the driver being repriced.
+     * @param removedRider the rider leaving the route, or -1 if none.
+     * @param addedRider the rider entering the route, or -1 if none.
+     * @return the total distance of the modified driver route.
+     */
+    private long getRouteCostAfterMove(RideSharingSolution sol, int driver, int removedRider, int addedRider) {
+        int[] current = sol.getDriverRiders(driver);
+        int load = 0;
+        boolean added = addedRider < 0;
+        for (int j = 0; j < sol.getLoad(driver); j++) {
+            int rider = current[j];
+            if (!added && addedRider < rider) {
+                candidateRiders[load++] = addedRider;
+                added = true;
+            }
+            if (rider != removedRider) {
+                candidateRiders[load++] = rider;
+            }
+        }
+        if (!added) {
+            candidateRiders[load++] = addedRider;
+        }
 
-        ridersOriginCoords.add(allCoords.get(15));
-        ridersOriginCoords.add(allCoords.get(16));
-        ridersOriginCoords.add(allCoords.get(17));
-        ridersOriginCoords.add(allCoords.get(18));
-        ridersOriginCoords.add(allCoords.get(19));
+        return getRouteCost(driver, candidateRiders, load);
+    }
 
-        ridersOriginCoords.add(allCoords.get(20));
-        ridersOriginCoords.add(allCoords.get(21));
-        ridersOriginCoords.add(allCoords.get(22));
-        ridersOriginCoords.add(allCoords.get(23));
-        ridersOriginCoords.add(allCoords.get(24));
+    /**
+     * Gives the precomputed distance between two nodes of the instance.
+     *
+     * @param origin the origin node.
+     * @param destination the destination node.
+     * @return the rounded euclidean distance between both nodes.
+     */
+    public long getDistance(int origin, int destination) {
+        return distanceMatrix[origin * nodes + destination];
+    }
 
-        ridersOriginCoords.add(allCoords.get(25));
-        ridersOriginCoords.add(allCoords.get(26));
-        ridersOriginCoords.add(allCoords.get(27));
-        ridersOriginCoords.add(allCoords.get(28));
-        ridersOriginCoords.add(allCoords.get(29));
+    /**
+     * Gives how far apart two riders travel, as the distance between their origins plus
+     * the distance between their destinations.
+     */
+    public long getRidersDistance(int rider, int otherRider) {
+        return getDistance(ridersOriginNodes[rider], ridersOriginNodes[otherRider])
+                + getDistance(ridersDestinationNodes[rider], ridersDestinationNodes[otherRider]);
+    }
 
-        ridersOriginCoords.add(allCoords.get(30));
+    /**
+     * Checks whether the driver of an element is one of the k drivers whose origins
+     * are the nearest to the origin of its rider.
+     *
+     * @param elem the element.
+     * @param k the number of nearest drivers.
+     * @return true if the element belongs to the k nearest drivers neighbourhood.
+     */
+    public boolean isAmongNearestDrivers(int elem, int k) {
+        return driverRanks[elem] < k;
+    }
 
-        ridersDestinationCoords.addAll(new ArrayList<>(Collections.nCopies(riders, commonDestination)));
-        driversDestinationCoords.addAll(new ArrayList<>(Collections.nCopies(drivers, commonDestination)));
+    public List<List<Integer>> getRidersPerDriverLists(Solution<Integer> sol) {
+        List<List<Integer>> driversDecisionVariables = new ArrayList<>();
+        IntStream.range(0, drivers).forEach(ign -> {
+            driversDecisionVariables.add(new ArrayList<>(Collections.nCopies(riders, 0))); // Drivers start not serving any riders
+        });
+
+        for (Integer item : sol) {
+            int rider = item % riders;
+            int driver = item / riders;
+            driversDecisionVariables.get(driver).set(rider, 1);
+        }
+
+        return driversDecisionVariables;
     }
 
-    private void read44(List<NodeCoord> allCoords) {
-        drivers = 6;
-        riders = 37;
-        maxRequests = 4;
-        maxDrivingTime = 110;
-        penalty = 100.0;
+    @Override
+    public Double evaluateInsertionCost(Integer elem, Solution<Integer> sol) {
+        return getInsertionDelta(elem, sol);
+    }
 
-        domainSize = drivers * riders;
-        loadDriverAndRiderCoordsFor44(allCoords);
+    @Override
+    public Double evaluateRemovalCost(Integer elem, Solution<Integer> sol) {
+        return getRemovalDelta(elem, sol);
+    }
 
-        IntStream.range(0, drivers).forEach(ign ->
-            driverServingRidersVariable.add(new ArrayList<>(Collections.nCopies(riders, 0))) // Drivers start not serving any riders
-        );
+    @Override
+    public Double evaluateExchangeCost(Integer elemIn, Integer elemOut, Solution<Integer> sol) {
+        return getExchangeDelta(elemIn, elemOut, sol);
     }
 
-    private void loadDriverAndRiderCoordsFor44(List<NodeCoord> allCoords) {
-        NodeCoord commonDestination = allCoords.get(43);
+    /**
+     * Primitive counterpart of {@link #evaluateInsertionCost(Integer, Solution)}, which only
+     * reprices the driver receiving the rider. Serving a rider already served is not feasible.
+     */
+    public double getInsertionDelta(int elem, Solution<Integer> sol) {
+        RideSharingSolution rideSharingSol = asRideSharingSolution(sol);
+        updateRouteCosts(rideSharingSol);
+        int rider = elem % riders;
+        int driver = elem / riders;
+        if (rideSharingSol.isServed(rider)) {
+            return Double.POSITIVE_INFINITY;
+        }
 
-        driversOriginCoords.add(allCoords.get(0));
-        driversOriginCoords.add(allCoords.get(1));
-        driversOriginCoords.add(allCoords.get(2));
-        driversOriginCoords.add(allCoords.get(3));
-        driversOriginCoords.add(allCoords.get(4));
-        driversOriginCoords.add(allCoords.get(5));
+        return getRouteDelta(rideSharingSol, driver, -1, rider) - penalty;
+    }
 
-        ridersOriginCoords.add(allCoords.get(6));
-        ridersOriginCoords.add(allCoords.get(7));
-        ridersOriginCoords.add(allCoords.get(8));
-        ridersOriginCoords.add(allCoords.get(9));
-        ridersOriginCoords.add(allCoords.get(10));
+    /**
+     * Primitive counterpart of {@link #evaluateRemovalCost(Integer, Solution)}, which only
+     * reprices the driver losing the rider.
+     */
+    public double getRemovalDelta(int elem, Solution<Integer> sol) {
+        RideSharingSolution rideSharingSol = asRideSharingSolution(sol);
+        updateRouteCosts(rideSharingSol);
+        int rider = elem % riders;
+        int driver = elem / riders;
+        if (rideSharingSol.getDriver(rider) != driver) {
+            return 0.0;
+        }
 
-        ridersOriginCoords.add(allCoords.get(11));
-        ridersOriginCoords.add(allCoords.get(12));
-        ridersOriginCoords.add(allCoords.get(13));
-        ridersOriginCoords.add(allCoords.get(14));
-        ridersOriginCoords.add(allCoords.get(15));
+        return getRouteDelta(rideSharingSol, driver, rider, -1) + penalty;
+    }
 
-        ridersOriginCoords.add(allCoords.get(16));
-        ridersOriginCoords.add(allCoords.get(17));
-        ridersOriginCoords.add(allCoords.get(18));
-        ridersOriginCoords.add(allCoords.get(19));
-        ridersOriginCoords.add(allCoords.get(20));
+    /**
+     * Primitive counterpart of {@link #evaluateExchangeCost(Integer, Integer, Solution)}, which
+     * only reprices the one or two drivers involved in the exchange. Exchanging two elements of
+     * the same rider moves it from one driver to another.
+     */
+    public double getExchangeDelta(int elemIn, int elemOut, Solution<Integer> sol) {
+        RideSharingSolution rideSharingSol = asRideSharingSolution(sol);
+        updateRouteCosts(rideSharingSol);
+        int riderIn = elemIn % riders;
+        int driverIn = elemIn / riders;
+        int riderOut = elemOut % riders;
+        int driverOut = elemOut / riders;
+        if (rideSharingSol.getDriver(riderOut) != driverOut) {
+            return getInsertionDelta(elemIn, rideSharingSol);
+        }
+        if (riderIn != riderOut && rideSharingSol.isServed(riderIn)) {
+            return Double.POSITIVE_INFINITY;
+        }
 
-        ridersOriginCoords.add(allCoords.get(21));
-        ridersOriginCoords.add(allCoords.get(22));
-        ridersOriginCoords.add(allCoords.get(23));
-        ridersOriginCoords.add(allCoords.get(24));
-        ridersOriginCoords.add(allCoords.get(25));
+        if (driverIn == driverOut) {
+            return getRouteDelta(rideSharingSol, driverIn, riderOut, riderIn);
+        }
 
-        ridersOriginCoords.add(allCoords.get(26));
-        ridersOriginCoords.add(allCoords.get(27));
-        ridersOriginCoords.add(allCoords.get(28));
-        ridersOriginCoords.add(allCoords.get(29));
-        ridersOriginCoords.add(allCoords.get(30));
+        return getRouteDelta(rideSharingSol, driverOut, riderOut, -1) + getRouteDelta(rideSharingSol, driverIn, -1, riderIn);
+    }
 
-        ridersOriginCoords.add(allCoords.get(31));
-        ridersOriginCoords.add(allCoords.get(32));
-        ridersOriginCoords.add(allCoords.get(33));
-        ridersOriginCoords.add(allCoords.get(34));
-        ridersOriginCoords.add(allCoords.get(35));
+    private void loadInstance(RideSharingInstance instance) {
+        drivers = instance.getDrivers();
+        riders = instance.getRiders();
+        maxRequests = instance.maxRequests;
+        maxDrivingTime = instance.maxDrivingTime;
+        penalty = instance.penalty;
+        domainSize = drivers * riders;
 
-        ridersOriginCoords.add(allCoords.get(36));
-        ridersOriginCoords.add(allCoords.get(37));
-        ridersOriginCoords.add(allCoords.get(38));
-        ridersOriginCoords.add(allCoords.get(39));
-        ridersOriginCoords.add(allCoords.get(40));
+        nodes = instance.getNodes();
+        distanceMatrix = instance.distanceMatrix;
+        driversOriginNodes = instance.driversOriginNodes;
+        driversDestinationNodes = instance.driversDestinationNodes;
+        ridersOriginNodes = instance.ridersOriginNodes;
+        ridersDestinationNodes = instance.ridersDestinationNodes;
+
+        // A single coordinate instance per node, so that riders sharing a node share their coordinate
+        List<NodeCoord> allCoords = new ArrayList<>(nodes);
+        for (int node = 0; node < nodes; node++) {
+            allCoords.add(new NodeCoord(instance.xs[node], instance.ys[node]));
+        }
+        for (int driver = 0; driver < drivers; driver++) {
+            driversOriginCoords.add(allCoords.get(driversOriginNodes[driver]));
+            driversDestinationCoords.add(allCoords.get(driversDestinationNodes[driver]));
+        }
+        for (int rider = 0; rider < riders; rider++) {
+            ridersOriginCoords.add(allCoords.get(ridersOriginNodes[rider]));
+            ridersDestinationCoords.add(allCoords.get(ridersDestinationNodes[rider]));
+        }
+        buildDriverRanks();
+
+        domainElements = new Integer[domainSize];
+        domainElementKeys = new long[domainSize];
+        Random keys = new Random(domainSize);
+        for (int i = 0; i < domainSize; i++) {
+            domainElements[i] = i;
+            domainElementKeys[i] = keys.nextLong();
+        }
+        allocateBuffers();
 
-        ridersOriginCoords.add(allCoords.get(41));
-        ridersOriginCoords.add(allCoords.get(42));
+        if (!AbstractTSGRASP.verbose) {
+            return;
+        }
+        System.out.println("domainSize: " + domainSize);
+        System.out.println("penalty: " + penalty);
+        System.out.println("Coords: " + allCoords);
+        System.out.println("Riders: " + riders);
+        System.out.println("Riders Origin Coords: " + ridersOriginCoords);
+        System.out.println("Riders Destination Coords: " + ridersDestinationCoords);
+
+        System.out.println("Drivers: " + drivers);
+        System.out.println("Max Driving Time: " + maxDrivingTime);
+        System.out.println("Max Requests Per Driver: " + maxRequests);
+        System.out.println("Drivers Origin Coords: " + driversOriginCoords);
+        System.out.println("Drivers Destination Coords: " + driversDestinationCoords);
+    }
 
-        ridersDestinationCoords.addAll(new ArrayList<>(Collections.nCopies(riders, commonDestination)));
-        driversDestinationCoords.addAll(new ArrayList<>(Collections.nCopies(drivers, commonDestination)));
+    private void buildDriverRanks() {
+        driverRanks = new int[domainSize];
+        for (int rider = 0; rider < riders; rider++) {
+            int riderNode = ridersOriginNodes[rider];
+            Integer[] driversByDistance = IntStream.range(0, drivers).boxed()
+                    .sorted(Comparator.comparingLong((Integer driver) -> getDistance(driversOriginNodes[driver], riderNode))
+                            .thenComparingInt(driver -> driver))
+                    .toArray(Integer[]::new);
+            for (int rank = 0; rank < drivers; rank++) {
+                driverRanks[driversByDistance[rank] * riders + rider] = rank;
+            }
+        }
     }
 
-    private int getDimensionSize(List<String> allLines) {
-        return Integer.parseInt(allLines.get(3).substring(DIMENSION_OFFSET));
+    private void allocateBuffers() {
+        routeSequencer = new RouteSequencer(distanceMatrix, nodes, riders);
+        pickupNodes = new int[riders];
+        dropoffNodes = new int[riders];
+        candidateRiders = new int[riders];
+        routeCostsMemoised = isRouteCostMemoisable();
+        routeCostCache = new RouteCostCache(routeCostCacheCapacity);
+        convertedSol = createEmptySolution();
     }
 
-    private int getCapacity(List<String> allLines) {
-        return Integer.parseInt(allLines.get(5).substring(CAPACITY_OFFSET));
+    private boolean isRouteCostMemoisable() {
+        return routeCostCacheCapacity > 0 && riders + (32 - Integer.numberOfLeadingZeros(drivers)) < Long.SIZE;
     }
 
-    private int getDrivers(List<String> allLines) {
-        String[] split = allLines.get(1).split("trucks: ");
-        return Integer.parseInt(split[1].substring(0, split[1].indexOf(",")));
+    /**
+     * Enforcement of the maxDrivingTime and maxRequests limits of the routes.
+     */
+    public enum ConstraintMode {
+        /** the limits are not checked */
+        IGNORE,
+        /** moves increasing the violation of a route are infeasible */
+        REJECT,
+        /** the violation of the routes is added to the cost, weighted by the violation penalty */
+        PENALISE
     }
 }
@@ -0,0 +1,97 @@
+package grasp.problem.ridesharing;
+
+/**
+ * A change of the ride sharing instance while it is being served, applied by
+ * {@link RideSharingOnlineOptimizer}. Drivers and riders are identified by the ids
+ * they were added with, and located by coordinates in the plane of the instance.
+ *
+ * Events are read one per line, as the type followed by the id and the coordinates:
+ * <pre>
+ * ADD_RIDER id originX originY destinationX destinationY
+ * CANCEL_RIDER id
+ * ADD_DRIVER id originX originY destinationX destinationY
+ * UPDATE_DRIVER_POSITION id x y
+ * </pre>
+ */
+public final class RideSharingEvent {
+
+    public enum Type {
+        ADD_RIDER,
+        CANCEL_RIDER,
+        ADD_DRIVER,
+        /**
+         * The driver moved, its route now starts from its new position
+         */
+        UPDATE_DRIVER_POSITION
+    }
+
+    public final Type type;
+    public final String id;
+    public final int x;
+    public final int y;
+    public final int destinationX;
+    public final int destinationY;
+
+    private RideSharingEvent(Type type, String id, int x, int y, int destinationX, int destinationY) {
+        this.type = type;
+        this.id = id;
+        this.x = x;
+        this.y = y;
+        this.destinationX = destinationX;
+        this.destinationY = destinationY;
+    }
+
+    public static RideSharingEvent addRider(String id, int originX, int originY, int destinationX, int destinationY) {
+        return new RideSharingEvent(Type.ADD_RIDER, id, originX, originY, destinationX, destinationY);
+    }
+
+    public static RideSharingEvent cancelRider(String id) {
+        return new RideSharingEvent(Type.CANCEL_RIDER, id, 0, 0, 0, 0);
+    }
+
+    public static RideSharingEvent addDriver(String id, int originX, int originY, int destinationX, int destinationY) {
+        return new RideSharingEvent(Type.ADD_DRIVER, id, originX, originY, destinationX, destinationY);
+    }
+
+    public static RideSharingEvent updateDriverPosition(String id, int x, int y) {
+        return new RideSharingEvent(Type.UPDATE_DRIVER_POSITION, id, x, y, 0, 0);
+    }
+
+    /**
+     * Parses an event line, see {@link RideSharingEvent}.
+     *
+     * @throws IllegalArgumentException if the line is not a valid event.
+     */
+    public static RideSharingEvent parse(String line) {
+        String[] values = line.trim().split("\\s+");
+        Type type = Type.valueOf(values[0]);
+        int expectedValues = type == Type.CANCEL_RIDER ? 2 : type == Type.UPDATE_DRIVER_POSITION ? 4 : 6;
+        if (values.length != expectedValues) {
+            throw new IllegalArgumentException("Expected " + expectedValues + " values in event: " + line);
+        }
+
+        switch (type) {
+            case ADD_RIDER:
+                return addRider(values[1], Integer.parseInt(values[2]), Integer.parseInt(values[3]), Integer.parseInt(values[4]), Integer.parseInt(values[5]));
+            case CANCEL_RIDER:
+                return cancelRider(values[1]);
+            case ADD_DRIVER:
+                return addDriver(values[1], Integer.parseInt(values[2]), Integer.parseInt(values[3]), Integer.parseInt(values[4]), Integer.parseInt(values[5]));
+            default:
+                return updateDriverPosition(values[1], Integer.parseInt(values[2]), Integer.parseInt(values[3]));
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case CANCEL_RIDER:
+                return type + " " + id;
+            case UPDATE_DRIVER_POSITION:
+                return type + " " + id + " " + x + " " + y;
+            default:
+                return type + " " + id + " " + x + " " + y + " " + destinationX + " " + destinationY;
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package grasp.problem.ridesharing;
+
+/**
+ * Parsed data of a ride sharing instance: the coordinates of its nodes, the nodes
+ * of the drivers and riders origins and destinations, the problem parameters and
+ * the distances between all pairs of nodes. Nodes are identified by their index in
+ * the NODE_COORD_SECTION of the instance file, so the distance matrix is stored
+ * flat, row by row, over all of them.
+ *
+ * Instances are immutable once loaded and are shared by all the evaluators of the
+ * same file; their arrays must not be modified.
+ */
+public final class RideSharingInstance {
+
+    final String name;
+    final int[] xs;
+    final int[] ys;
+    final int[] driversOriginNodes;
+    final int[] driversDestinationNodes;
+    final int[] ridersOriginNodes;
+    final int[] ridersDestinationNodes;
+    final int maxRequests;
+    final int maxDrivingTime;
+    final double penalty;
+    final long[] distanceMatrix;
+
+    RideSharingInstance(String name, int[] xs, int[] ys, int[] driversOriginNodes, int[] driversDestinationNodes,
+                        int[] ridersOriginNodes, int[] ridersDestinationNodes, int maxRequests, int maxDrivingTime,
+                        double penalty, long[] distanceMatrix) {
+        this.name = name;
+        this.xs = xs;
+        this.ys = ys;
+        this.driversOriginNodes = driversOriginNodes;
+        this.driversDestinationNodes = driversDestinationNodes;
+        this.ridersOriginNodes = ridersOriginNodes;
+        this.ridersDestinationNodes = ridersDestinationNodes;
+        this.maxRequests = maxRequests;
+        this.maxDrivingTime = maxDrivingTime;
+        this.penalty = penalty;
+        this.distanceMatrix = distanceMatrix;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getNodes() {
+        return xs.length;
+    }
+
+    public int getDrivers() {
+        return driversOriginNodes.length;
+    }
+
+    public int getRiders() {
+        return ridersOriginNodes.length;
+    }
+
+}
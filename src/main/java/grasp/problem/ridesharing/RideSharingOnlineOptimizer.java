@@ -0,0 +1,443 @@
+package grasp.problem.ridesharing;
+
+import grasp.framework.AbstractTSGRASP;
+import grasp.framework.AbstractTSGRASP.ConstructiveMethod;
+import grasp.framework.AbstractTSGRASP.LocalSearchMethod;
+import grasp.problem.ridesharing.RideSharingEvaluator.ConstraintMode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a ride sharing assignment up to date while riders and drivers come and go,
+ * re-optimising it after each {@link RideSharingEvent} with a short search warm
+ * started from the current assignment, instead of solving the new instance from
+ * scratch.
+ *
+ * The node coordinates and distances are patched in place: a new node only costs its
+ * row and column of the distance matrix, which grows by doubling, and the nodes no
+ * longer used are compacted away once they outnumber the used ones. The evaluator and
+ * the Candidate List are then rebuilt over the patched data, in O(drivers * riders),
+ * as the elements encoding depends on the numbers of drivers and riders.
+ *
+ * The instances built share the coordinates and distance arrays, which are only
+ * written in the slots of nodes added after them, so the instances stay unchanged
+ * as far as they are concerned. An optimizer must not be shared between threads.
+ */
+public class RideSharingOnlineOptimizer {
+
+    /**
+     * Number of unused nodes below which the nodes are never compacted
+     */
+    private static final int MIN_COMPACTED_NODES = 64;
+
+    private final int maxRequests;
+    private final int maxDrivingTime;
+    private final double penalty;
+
+    /**
+     * The nodes, in slots 0 to {@link #nodes} - 1 of arrays of capacity xs.length, the
+     * distance matrix being stored flat with rows of that capacity
+     */
+    private int[] xs;
+    private int[] ys;
+    private long[] distanceMatrix;
+    private int nodes;
+
+    /**
+     * The number of drivers and riders origins and destinations at each node, and the
+     * number of nodes used by at least one of them
+     */
+    private int[] nodeUses;
+    private int usedNodes;
+
+    private final List<Participant> drivers = new ArrayList<>();
+    private final List<Participant> riders = new ArrayList<>();
+    private final Map<String, Participant> driversById = new HashMap<>();
+    private final Map<String, Participant> ridersById = new HashMap<>();
+
+    /**
+     * Search settings of each re-optimisation
+     */
+    private double alpha = 0.15;
+    private int iterations = 10;
+    private Duration maxEventTime = Duration.ofMillis(100);
+    private int tenure = 10;
+    private ConstructiveMethod constructiveMethod = ConstructiveMethod.STANDARD;
+    private LocalSearchMethod localSearchMethod = LocalSearchMethod.BEST_IMPROVING;
+    private ConstraintMode constraintMode = ConstraintMode.IGNORE;
+    private double violationPenalty = 10;
+
+    private double cost;
+
+    /**
+     * Creates an optimizer with no drivers and no riders yet.
+     */
+    public RideSharingOnlineOptimizer(int maxRequests, int maxDrivingTime, double penalty) {
+        this.maxRequests = maxRequests;
+        this.maxDrivingTime = maxDrivingTime;
+        this.penalty = penalty;
+        this.xs = new int[16];
+        this.ys = new int[16];
+        this.distanceMatrix = new long[16 * 16];
+        this.nodeUses = new int[16];
+    }
+
+    /**
+     * Creates an optimizer starting from the drivers and riders of an instance, named
+     * D0, D1, ... and R0, R1, ... in the instance order, none of the riders being
+     * served until the first re-optimisation.
+     */
+    public RideSharingOnlineOptimizer(RideSharingInstance instance) {
+        this.maxRequests = instance.maxRequests;
+        this.maxDrivingTime = instance.maxDrivingTime;
+        this.penalty = instance.penalty;
+        // Shared until the first node is added, which grows the arrays into copies
+        this.xs = instance.xs;
+        this.ys = instance.ys;
+        this.distanceMatrix = instance.distanceMatrix;
+        this.nodes = instance.getNodes();
+        this.nodeUses = new int[nodes];
+        for (int driver = 0; driver < instance.getDrivers(); driver++) {
+            add(drivers, driversById, "D" + driver, instance.driversOriginNodes[driver], instance.driversDestinationNodes[driver]);
+        }
+        for (int rider = 0; rider < instance.getRiders(); rider++) {
+            add(riders, ridersById, "R" + rider, instance.ridersOriginNodes[rider], instance.ridersDestinationNodes[rider]);
+        }
+        this.cost = penalty * riders.size();
+    }
+
+    /**
+     * Sets the search run after each event.
+     *
+     * @param alpha the alpha of the constructive heuristic.
+     * @param iterations the number of GRASP iterations after the warm start.
+     * @param maxEventTime the max execution time of the search.
+     * @param tenure the tabu tenure.
+     */
+    public void setSearch(double alpha, int iterations, Duration maxEventTime, int tenure) {
+        this.alpha = alpha;
+        this.iterations = iterations;
+        this.maxEventTime = maxEventTime;
+        this.tenure = tenure;
+    }
+
+    public void setMethods(ConstructiveMethod constructiveMethod, LocalSearchMethod localSearchMethod) {
+        this.constructiveMethod = constructiveMethod;
+        this.localSearchMethod = localSearchMethod;
+    }
+
+    /**
+     * @see RideSharingEvaluator#setConstraints(ConstraintMode, double)
+     */
+    public void setConstraints(ConstraintMode mode, double violationPenalty) {
+        this.constraintMode = mode;
+        this.violationPenalty = violationPenalty;
+    }
+
+    /**
+     * Applies an event and re-optimises the assignment.
+     *
+     * @return the cost of the new assignment.
+     * @throws IllegalArgumentException if the event adds an id already added, or refers
+     *         to an id never added.
+     */
+    public double accept(RideSharingEvent event) {
+        apply(event);
+        return reoptimize();
+    }
+
+    /**
+     * Applies an event to the instance, keeping the assignment of the other riders.
+     */
+    public void apply(RideSharingEvent event) {
+        switch (event.type) {
+            case ADD_RIDER:
+                checkNew(ridersById, event.id);
+                add(riders, ridersById, event.id, addNode(event.x, event.y), addNode(event.destinationX, event.destinationY));
+                break;
+            case CANCEL_RIDER:
+                Participant rider = get(ridersById, event.id);
+                riders.remove(rider);
+                ridersById.remove(event.id);
+                release(rider.origin);
+                release(rider.destination);
+                break;
+            case ADD_DRIVER:
+                checkNew(driversById, event.id);
+                add(drivers, driversById, event.id, addNode(event.x, event.y), addNode(event.destinationX, event.destinationY));
+                break;
+            case UPDATE_DRIVER_POSITION:
+                Participant driver = get(driversById, event.id);
+                int origin = addNode(event.x, event.y);
+                use(origin);
+                release(driver.origin);
+                driver.origin = origin;
+                break;
+        }
+
+        if (nodes - usedNodes > Math.max(usedNodes, MIN_COMPACTED_NODES)) {
+            compact();
+        }
+    }
+
+    /**
+     * Searches for a better assignment of the current instance, starting from the
+     * current one.
+     *
+     * @return the cost of the new assignment.
+     */
+    public double reoptimize() {
+        if (drivers.isEmpty() || riders.isEmpty()) {
+            for (Participant rider : riders) {
+                rider.driver = null;
+            }
+            cost = penalty * riders.size();
+            return cost;
+        }
+
+        RideSharingEvaluator evaluator = new RideSharingEvaluator(buildInstance());
+        evaluator.setConstraints(constraintMode, violationPenalty);
+
+        Map<String, Integer> driverIndexes = new HashMap<>();
+        for (int driver = 0; driver < drivers.size(); driver++) {
+            driverIndexes.put(drivers.get(driver).id, driver);
+        }
+        RideSharingSolution initialSol = evaluator.createEmptySolution();
+        for (int rider = 0; rider < riders.size(); rider++) {
+            Integer driver = riders.get(rider).driver == null ? null : driverIndexes.get(riders.get(rider).driver);
+            if (driver != null && initialSol.getLoad(driver) < maxRequests) {
+                initialSol.assign(rider, driver);
+            }
+        }
+
+        RideSharingTSGRASP grasp = new RideSharingTSGRASP(alpha, iterations, maxEventTime, evaluator, tenure);
+        grasp.setInitialSolution(initialSol);
+        RideSharingSolution bestSol = (RideSharingSolution) grasp.solve(constructiveMethod, localSearchMethod);
+
+        for (int rider = 0; rider < riders.size(); rider++) {
+            int driver = bestSol.getDriver(rider);
+            riders.get(rider).driver = driver < 0 ? null : drivers.get(driver).id;
+        }
+        cost = bestSol.cost;
+        return cost;
+    }
+
+    /**
+     * @return the cost of the current assignment.
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * @return the driver of each served rider, by rider id, in the order the riders were added.
+     */
+    public Map<String, String> getAssignment() {
+        Map<String, String> assignment = new LinkedHashMap<>();
+        for (Participant rider : riders) {
+            if (rider.driver != null) {
+                assignment.put(rider.id, rider.driver);
+            }
+        }
+        return assignment;
+    }
+
+    public int getDrivers() {
+        return drivers.size();
+    }
+
+    public int getRiders() {
+        return riders.size();
+    }
+
+    private RideSharingInstance buildInstance() {
+        int[] driversOriginNodes = new int[drivers.size()];
+        int[] driversDestinationNodes = new int[drivers.size()];
+        for (int driver = 0; driver < drivers.size(); driver++) {
+            driversOriginNodes[driver] = drivers.get(driver).origin;
+            driversDestinationNodes[driver] = drivers.get(driver).destination;
+        }
+        int[] ridersOriginNodes = new int[riders.size()];
+        int[] ridersDestinationNodes = new int[riders.size()];
+        for (int rider = 0; rider < riders.size(); rider++) {
+            ridersOriginNodes[rider] = riders.get(rider).origin;
+            ridersDestinationNodes[rider] = riders.get(rider).destination;
+        }
+        return new RideSharingInstance("online", xs, ys, driversOriginNodes, driversDestinationNodes,
+                ridersOriginNodes, ridersDestinationNodes, maxRequests, maxDrivingTime, penalty, distanceMatrix);
+    }
+
+    private void add(List<Participant> participants, Map<String, Participant> participantsById, String id, int origin, int destination) {
+        Participant participant = new Participant(id, origin, destination);
+        participants.add(participant);
+        participantsById.put(id, participant);
+        use(origin);
+        use(destination);
+    }
+
+    private static void checkNew(Map<String, Participant> participantsById, String id) {
+        if (participantsById.containsKey(id)) {
+            throw new IllegalArgumentException("Id already added: " + id);
+        }
+    }
+
+    private static Participant get(Map<String, Participant> participantsById, String id) {
+        Participant participant = participantsById.get(id);
+        if (participant == null) {
+            throw new IllegalArgumentException("Unknown id: " + id);
+        }
+        return participant;
+    }
+
+    private void use(int node) {
+        if (nodeUses[node]++ == 0) {
+            usedNodes++;
+        }
+    }
+
+    private void release(int node) {
+        if (--nodeUses[node] == 0) {
+            usedNodes--;
+        }
+    }
+
+    /**
+     * Appends a node, computing its distances from and to the other nodes.
+     *
+     * @return the index of the node.
+     */
+    private int addNode(int x, int y) {
+        if (nodes == xs.length) {
+            resize(2 * xs.length, null);
+        }
+        int capacity = xs.length;
+        int node = nodes++;
+        xs[node] = x;
+        ys[node] = y;
+
+        NodeCoord coord = new NodeCoord(x, y);
+        for (int other = 0; other < node; other++) {
+            NodeCoord otherCoord = new NodeCoord(xs[other], ys[other]);
+            distanceMatrix[node * capacity + other] = coord.getDistanceFrom(otherCoord);
+            distanceMatrix[other * capacity + node] = otherCoord.getDistanceFrom(coord);
+        }
+        distanceMatrix[node * capacity + node] = 0;
+        return node;
+    }
+
+    /**
+     * Drops the nodes no longer used by any driver or rider, renumbering the others.
+     */
+    private void compact() {
+        int[] newNodes = new int[nodes];
+        int used = 0;
+        for (int node = 0; node < nodes; node++) {
+            newNodes[node] = nodeUses[node] > 0 ? used++ : -1;
+        }
+        resize(Math.max(16, 2 * used), newNodes);
+
+        for (Participant participant : drivers) {
+            participant.origin = newNodes[participant.origin];
+            participant.destination = newNodes[participant.destination];
+        }
+        for (Participant participant : riders) {
+            participant.origin = newNodes[participant.origin];
+            participant.destination = newNodes[participant.destination];
+        }
+    }
+
+    /**
+     * Copies the nodes into arrays of a new capacity.
+     *
+     * @param newNodes the new index of each node, -1 for the nodes dropped, or null to
+     *        keep them all at the same index.
+     */
+    private void resize(int capacity, int[] newNodes) {
+        int[] newXs = new int[capacity];
+        int[] newYs = new int[capacity];
+        int[] newNodeUses = new int[capacity];
+        long[] newDistanceMatrix = new long[capacity * capacity];
+        int oldCapacity = xs.length;
+        int newCount = 0;
+        for (int origin = 0; origin < nodes; origin++) {
+            int newOrigin = newNodes == null ? origin : newNodes[origin];
+            if (newOrigin < 0) {
+                continue;
+            }
+            newXs[newOrigin] = xs[origin];
+            newYs[newOrigin] = ys[origin];
+            newNodeUses[newOrigin] = nodeUses[origin];
+            for (int destination = 0; destination < nodes; destination++) {
+                int newDestination = newNodes == null ? destination : newNodes[destination];
+                if (newDestination >= 0) {
+                    newDistanceMatrix[newOrigin * capacity + newDestination] = distanceMatrix[origin * oldCapacity + destination];
+                }
+            }
+            newCount++;
+        }
+        xs = newXs;
+        ys = newYs;
+        nodeUses = newNodeUses;
+        distanceMatrix = newDistanceMatrix;
+        nodes = newCount;
+    }
+
+    private static final class Participant {
+        final String id;
+        int origin;
+        int destination;
+
+        /**
+         * The id of the driver serving the rider, null if not served or for a driver
+         */
+        String driver;
+
+        Participant(String id, int origin, int destination) {
+            this.id = id;
+            this.origin = origin;
+            this.destination = destination;
+        }
+    }
+
+    /**
+     * Reads events from the standard input, one per line, and prints the time taken
+     * by each one, the cost and the assignment after it.
+     *
+     * Usage: {@code RideSharingOnlineOptimizer (instance.vrp | maxRequests maxDrivingTime penalty)}
+     */
+    public static void main(String[] args) throws IOException {
+        AbstractTSGRASP.verbose = false;
+        RideSharingOnlineOptimizer optimizer;
+        if (args.length == 1) {
+            optimizer = new RideSharingOnlineOptimizer(VrpInstanceLoader.load(Paths.get(args[0])));
+            optimizer.reoptimize();
+        } else if (args.length == 3) {
+            optimizer = new RideSharingOnlineOptimizer(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Double.parseDouble(args[2]));
+        } else {
+            throw new IllegalArgumentException("Usage: RideSharingOnlineOptimizer (instance.vrp | maxRequests maxDrivingTime penalty)");
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            long started = System.nanoTime();
+            double cost = optimizer.accept(RideSharingEvent.parse(line));
+            long micros = (System.nanoTime() - started) / 1000;
+            System.out.printf("%s -> cost %.1f in %.3fms, %s%n", line.trim(), cost, micros / 1000.0, optimizer.getAssignment());
+        }
+    }
+
+}
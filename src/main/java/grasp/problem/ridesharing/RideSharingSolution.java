@@ -0,0 +1,410 @@
+package grasp.problem.ridesharing;
+
+import grasp.framework.Solution;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Ride sharing specialisation of {@link Solution}. Besides the list of elements
+ * (element = driver * riders + rider), it keeps the rider to driver assignment,
+ * the position of each rider element in the list and the riders served by each
+ * driver in primitive arrays, so membership, insertion and removal are O(1)
+ * and copies are plain array clones.
+ *
+ * The boxed elements are taken from a pool shared by all solutions of the same
+ * instance, so adding elements never allocates. Removal swaps the removed element
+ * with the last one, hence the element order is not preserved and positional
+ * modifications are not supported.
+ */
+@SuppressWarnings("serial")
+public class RideSharingSolution extends Solution<Integer> {
+
+    /**
+     * Boxed elements of the domain, shared by all solutions of the same instance
+     */
+    private final Integer[] elements;
+
+    /**
+     * Random keys of the elements of the domain, shared by all solutions of the same
+     * instance. The hash of a solution is the xor of the keys of its elements.
+     */
+    private final long[] elementKeys;
+    private long hash;
+
+    private final int drivers;
+    private final int riders;
+
+    /**
+     * Rider related variables, -1 when the rider is not served
+     */
+    private final int[] riderDriver;
+    private final int[] riderPosition;
+
+    /**
+     * Driver related variables, the riders of each driver are kept sorted by index
+     */
+    private final int[] driverLoad;
+    private final int[][] driverRiders;
+
+    /**
+     * Route cost of each driver, cached by the evaluator. Drivers whose riders have
+     * changed are kept in a stack until the evaluator reprices them.
+     */
+    private final long[] driverRouteCost;
+    private final boolean[] staleRouteCost;
+    private final int[] staleDrivers;
+    private int staleDriversCount;
+    private long routesCost;
+
+    /**
+     * Amount by which the route of each driver exceeds its limits, cached with its cost
+     */
+    private final long[] driverViolation;
+    private long routesViolation;
+
+    /**
+     * Listener notified of the assignment changes, not carried over to copies
+     */
+    private AssignmentListener assignmentListener;
+
+    public RideSharingSolution(int drivers, int riders, Integer[] elements, long[] elementKeys) {
+        super();
+        this.elements = elements;
+        this.elementKeys = elementKeys;
+        this.drivers = drivers;
+        this.riders = riders;
+        this.riderDriver = new int[riders];
+        this.riderPosition = new int[riders];
+        this.driverLoad = new int[drivers];
+        this.driverRiders = new int[drivers][];
+        this.driverRouteCost = new long[drivers];
+        this.driverViolation = new long[drivers];
+        this.staleRouteCost = new boolean[drivers];
+        this.staleDrivers = new int[drivers];
+
+        Arrays.fill(riderDriver, -1);
+        for (int driver = 0; driver < drivers; driver++) {
+            driverRiders[driver] = new int[4];
+            markStale(driver);
+        }
+    }
+
+    public RideSharingSolution(RideSharingSolution sol) {
+        super(sol);
+        this.elements = sol.elements;
+        this.elementKeys = sol.elementKeys;
+        this.hash = sol.hash;
+        this.drivers = sol.drivers;
+        this.riders = sol.riders;
+        this.riderDriver = sol.riderDriver.clone();
+        this.riderPosition = sol.riderPosition.clone();
+        this.driverLoad = sol.driverLoad.clone();
+        this.driverRiders = new int[drivers][];
+        for (int driver = 0; driver < drivers; driver++) {
+            driverRiders[driver] = sol.driverRiders[driver].clone();
+        }
+        this.driverRouteCost = sol.driverRouteCost.clone();
+        this.driverViolation = sol.driverViolation.clone();
+        this.staleRouteCost = sol.staleRouteCost.clone();
+        this.staleDrivers = sol.staleDrivers.clone();
+        this.staleDriversCount = sol.staleDriversCount;
+        this.routesCost = sol.routesCost;
+        this.routesViolation = sol.routesViolation;
+    }
+
+    @Override
+    public RideSharingSolution copy() {
+        return new RideSharingSolution(this);
+    }
+
+    public int getDrivers() {
+        return drivers;
+    }
+
+    public int getRiders() {
+        return riders;
+    }
+
+    /**
+     * @return the driver serving the rider, or -1 if the rider is not served.
+     */
+    public int getDriver(int rider) {
+        return riderDriver[rider];
+    }
+
+    public boolean isServed(int rider) {
+        return riderDriver[rider] >= 0;
+    }
+
+    /**
+     * Gives a hash of the rider to driver assignment, maintained in O(1) as the solution
+     * changes. Solutions with the same assignment have the same hash.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    public int getLoad(int driver) {
+        return driverLoad[driver];
+    }
+
+    /**
+     * @return the riders served by the driver, sorted by index. Only the first
+     *         {@link #getLoad(int)} positions are meaningful.
+     */
+    public int[] getDriverRiders(int driver) {
+        return driverRiders[driver];
+    }
+
+    public void setAssignmentListener(AssignmentListener assignmentListener) {
+        this.assignmentListener = assignmentListener;
+    }
+
+    /**
+     * Serves a rider with a driver.
+     *
+     * @return false if the rider is already served by that driver.
+     * @throws IllegalArgumentException if the rider is already served by another driver.
+     */
+    public boolean assign(int rider, int driver) {
+        int currentDriver = riderDriver[rider];
+        if (currentDriver == driver) {
+            return false;
+        }
+        if (currentDriver >= 0) {
+            throw new IllegalArgumentException("Rider " + rider + " is already served by driver " + currentDriver);
+        }
+
+        riderDriver[rider] = driver;
+        riderPosition[rider] = super.size();
+        hash ^= elementKeys[driver * riders + rider];
+        super.add(elements[driver * riders + rider]);
+
+        int[] servedRiders = driverRiders[driver];
+        int load = driverLoad[driver];
+        if (load == servedRiders.length) {
+            servedRiders = driverRiders[driver] = Arrays.copyOf(servedRiders, 2 * load);
+        }
+        int j = load;
+        while (j > 0 && servedRiders[j - 1] > rider) {
+            servedRiders[j] = servedRiders[j - 1];
+            j--;
+        }
+        servedRiders[j] = rider;
+        driverLoad[driver]++;
+
+        markStale(driver);
+        if (assignmentListener != null) {
+            assignmentListener.assigned(rider, driver);
+        }
+        return true;
+    }
+
+    /**
+     * Stops serving a rider.
+     *
+     * @return false if the rider was not served.
+     */
+    public boolean unassign(int rider) {
+        int driver = riderDriver[rider];
+        if (driver < 0) {
+            return false;
+        }
+
+        // Swap the rider element with the last element of the list, then drop the last position
+        int position = riderPosition[rider];
+        int lastPosition = super.size() - 1;
+        Integer last = super.get(lastPosition);
+        super.set(position, last);
+        riderPosition[last % riders] = position;
+        super.remove(lastPosition);
+        riderDriver[rider] = -1;
+        hash ^= elementKeys[driver * riders + rider];
+
+        int[] servedRiders = driverRiders[driver];
+        int load = driverLoad[driver];
+        int j = Arrays.binarySearch(servedRiders, 0, load, rider);
+        System.arraycopy(servedRiders, j + 1, servedRiders, j, load - j - 1);
+        driverLoad[driver]--;
+
+        markStale(driver);
+        if (assignmentListener != null) {
+            assignmentListener.unassigned(rider, driver);
+        }
+        return true;
+    }
+
+    private void markStale(int driver) {
+        if (!staleRouteCost[driver]) {
+            staleRouteCost[driver] = true;
+            staleDrivers[staleDriversCount++] = driver;
+            routesCost -= driverRouteCost[driver];
+            driverRouteCost[driver] = 0;
+            routesViolation -= driverViolation[driver];
+            driverViolation[driver] = 0;
+        }
+    }
+
+    /**
+     * @return the number of drivers whose route cost must be recomputed.
+     */
+    int getStaleDriversCount() {
+        return staleDriversCount;
+    }
+
+    /**
+     * Pops a driver whose route cost must be recomputed.
+     */
+    int popStaleDriver() {
+        return staleDrivers[--staleDriversCount];
+    }
+
+    long getRouteCost(int driver) {
+        return driverRouteCost[driver];
+    }
+
+    long getViolation(int driver) {
+        return driverViolation[driver];
+    }
+
+    void setRouteCost(int driver, long routeCost, long violation) {
+        routesCost += routeCost - driverRouteCost[driver];
+        driverRouteCost[driver] = routeCost;
+        routesViolation += violation - driverViolation[driver];
+        driverViolation[driver] = violation;
+        staleRouteCost[driver] = false;
+    }
+
+    /**
+     * @return the sum of the route costs of all drivers, valid once no driver is stale.
+     */
+    long getRoutesCost() {
+        return routesCost;
+    }
+
+    /**
+     * @return the sum of the violations of all drivers, valid once no driver is stale.
+     */
+    long getRoutesViolation() {
+        return routesViolation;
+    }
+
+    @Override
+    public boolean add(Integer elem) {
+        return assign(elem % riders, elem / riders);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Integer> c) {
+        boolean modified = false;
+        for (Integer elem : c) {
+            modified |= add(elem);
+        }
+        return modified;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return contains(o) && unassign((Integer) o % riders);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Integer)) {
+            return false;
+        }
+        int elem = (Integer) o;
+        return elem >= 0 && elem < drivers * riders && riderDriver[elem % riders] == elem / riders;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return contains(o) ? riderPosition[(Integer) o % riders] : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public void clear() {
+        while (!isEmpty()) {
+            unassign(super.get(super.size() - 1) % riders);
+        }
+    }
+
+    @Override
+    public List<Integer> subList(int fromIndex, int toIndex) {
+        return Collections.unmodifiableList(super.subList(fromIndex, toIndex));
+    }
+
+    @Override
+    public void add(int index, Integer element) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Integer set(int index, Integer element) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Integer remove(int index) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Integer> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Integer> filter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<Integer> operator) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void sort(Comparator<? super Integer> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Listener of the changes of the rider to driver assignment of a solution.
+     */
+    public interface AssignmentListener {
+
+        /**
+         * Called after a rider starts being served by a driver.
+         */
+        void assigned(int rider, int driver);
+
+        /**
+         * Called after a rider stops being served by a driver.
+         */
+        void unassigned(int rider, int driver);
+
+    }
+
+}
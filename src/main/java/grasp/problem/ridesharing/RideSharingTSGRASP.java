@@ -2,30 +2,225 @@ package grasp.problem.ridesharing;
 
 import grasp.framework.AbstractTSGRASP;
 import grasp.framework.Solution;
+import grasp.framework.SolverMetrics.Counter;
+import grasp.framework.TabuList;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.time.Duration;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class RideSharingTSGRASP extends AbstractTSGRASP<Integer> {
 
-    private final RideSharingEvaluator rideSharingEvaluator;
+    /**
+     * Acceptance criteria of the {@link LocalSearchMethod#ALNS} search: simulated
+     * annealing of the current solution, or record-to-record travel around the best one
+     */
+    public enum AlnsAcceptance {
+        SIMULATED_ANNEALING,
+        RECORD_TO_RECORD
+    }
 
-    private final Integer fakeTLElem = new Integer(-1);
+    private final RideSharingEvaluator rideSharingEvaluator;
 
-    public RideSharingTSGRASP(Double alpha, Integer iterations, Duration maxExecutionTime, RideSharingEvaluator rideSharingEvaluator, Integer tenure) throws IOException {
+    /**
+     * The Candidate List, kept up to date with the current solution as moves are applied
+     */
+    private RideSharingCandidateList candidateList;
+
+    /**
+     * Tabu tenures of the attributes of a move: the elements entering or leaving the
+     * solution, their riders and their drivers. A tenure of 0 disables the attribute.
+     * By default only elements are tabu, for {@link #tenure} moves, which behaves as a
+     * FIFO list holding the elements of the last moves.
+     */
+    private int elementTenure;
+    private int riderTenure;
+    private int driverTenure;
+
+    /**
+     * Reactive tabu search variables. The walk stops after a number of moves, or of moves
+     * without improving its best solution. The element tenure grows when the walk revisits
+     * a solution, detected through the solutions hashes, and shrinks back when it has not
+     * changed for a while.
+     */
+    private int walkMaxMoves = 500;
+    private int walkMaxMovesWithoutImprovement = 100;
+    private final VisitedSolutions visitedSolutions = new VisitedSolutions();
+
+    /**
+     * Tabu moves leading to a cost lower than this one are admissible (aspiration criterion)
+     */
+    private double aspirationCost = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Number of nearest drivers of each rider the granular neighbourhood is restricted
+     * to, 0 for the whole neighbourhood
+     */
+    private int nearestDrivers;
+
+    /**
+     * The adaptive large neighbourhood search of the {@link LocalSearchMethod#ALNS} method
+     */
+    private final AdaptiveLargeNeighbourhoodSearch alns;
+
+    /**
+     * Minimum number of moves of a neighbourhood for it to be scored in parallel
+     */
+    private static final int MIN_PARALLEL_MOVES = 1024;
+
+    /**
+     * Neighbourhood scoring variables. The moves of a neighbourhood are indexed in the
+     * order the serial scan visits them (insertions, removals, then exchanges) and split
+     * in contiguous chunks, each one scored with its own evaluator. The best move is the
+     * lowest delta, ties broken by the lowest index, which is the move the serial scan picks.
+     */
+    private int neighbourhoodChunks;
+    private ForkJoinPool neighbourhoodPool;
+    private RideSharingEvaluator[] chunkEvaluators;
+    private double[] chunkBestDelta;
+    private int[] chunkBestMove;
+    private final int[] candidatesSnapshot;
+    private final int[] solSnapshot;
+    private long[] sampledMoves = new long[0];
+    private int candidatesCount;
+    private int solCount;
+    private int bestMoveIn;
+    private int bestMoveOut;
+
+    public RideSharingTSGRASP(Double alpha, Integer iterations, Duration maxExecutionTime, RideSharingEvaluator rideSharingEvaluator, Integer tenure) {
         super(rideSharingEvaluator, alpha, iterations, maxExecutionTime, tenure);
         this.rideSharingEvaluator = rideSharingEvaluator;
+        this.candidatesSnapshot = new int[rideSharingEvaluator.getDomainSize()];
+        this.solSnapshot = new int[rideSharingEvaluator.riders];
+        this.alns = new AdaptiveLargeNeighbourhoodSearch(rideSharingEvaluator);
+        setNeighbourhoodParallelism(1, null);
+        setTabuTenures(tenure, 0, 0);
+    }
+
+    @Override
+    public RideSharingTSGRASP createWorker() {
+        RideSharingTSGRASP worker = new RideSharingTSGRASP(usedAlpha, iterations, maxExecutionTime, new RideSharingEvaluator(rideSharingEvaluator), tenure);
+        if (neighbourhoodChunks > 1) {
+            worker.setNeighbourhoodParallelism(neighbourhoodChunks, neighbourhoodPool);
+        }
+        worker.setTabuTenures(elementTenure, riderTenure, driverTenure);
+        worker.setTabuWalkBudgets(walkMaxMoves, walkMaxMovesWithoutImprovement);
+        worker.setNearestDrivers(nearestDrivers);
+        worker.setAlnsParameters(alns.getIterations(), alns.getMaxIterationsWithoutImprovement(), alns.getAcceptance());
+        return worker;
+    }
+
+    /**
+     * Sets how many moves each attribute of a move stays tabu once the move is made.
+     * A move is tabu if any attribute of the elements it involves is tabu.
+     *
+     * @param elementTenure the tenure of the elements entering or leaving the solution.
+     * @param riderTenure the tenure of the riders of those elements.
+     * @param driverTenure the tenure of the drivers of those elements.
+     */
+    public void setTabuTenures(int elementTenure, int riderTenure, int driverTenure) {
+        this.elementTenure = elementTenure;
+        this.riderTenure = riderTenure;
+        this.driverTenure = driverTenure;
+    }
+
+    /**
+     * Sets when the reactive tabu search stops.
+     *
+     * @param maxMoves the max number of moves of a walk.
+     * @param maxMovesWithoutImprovement the max number of consecutive moves not improving the best solution of the walk.
+     */
+    public void setTabuWalkBudgets(int maxMoves, int maxMovesWithoutImprovement) {
+        this.walkMaxMoves = maxMoves;
+        this.walkMaxMovesWithoutImprovement = maxMovesWithoutImprovement;
+    }
+
+    /**
+     * Restricts the constructive heuristics and the local searches to a granular
+     * neighbourhood, in which riders only enter the solution with one of their nearest
+     * drivers. The local searches fall back to the whole neighbourhood when the
+     * granular one has no move to make.
+     *
+     * @param k the number of nearest drivers of each rider, 0 for the whole neighbourhood.
+     */
+    public void setNearestDrivers(int k) {
+        this.nearestDrivers = k;
+    }
+
+    /**
+     * Sets when the {@link LocalSearchMethod#ALNS} search stops and how it accepts the
+     * solutions it builds.
+     *
+     * @param iterations the max number of destroy and repair iterations of a search.
+     * @param maxIterationsWithoutImprovement the max number of consecutive iterations not improving the best solution of the search.
+     * @param acceptance the acceptance criterion.
+     */
+    public void setAlnsParameters(int iterations, int maxIterationsWithoutImprovement, AlnsAcceptance acceptance) {
+        alns.setParameters(iterations, maxIterationsWithoutImprovement, acceptance);
+    }
+
+    /**
+     * Makes the best improving and tabu local searches score their neighbourhoods in
+     * parallel chunks. The moves picked are the same as with the serial scan.
+     *
+     * @param chunks the number of chunks the neighbourhood is split in, 1 for a serial scan.
+     * @param pool the pool scoring the chunks.
+     */
+    public void setNeighbourhoodParallelism(int chunks, ForkJoinPool pool) {
+        this.neighbourhoodChunks = chunks;
+        this.neighbourhoodPool = pool;
+        this.chunkEvaluators = new RideSharingEvaluator[chunks];
+        this.chunkBestDelta = new double[chunks];
+        this.chunkBestMove = new int[chunks];
+        chunkEvaluators[0] = rideSharingEvaluator;
+        for (int c = 1; c < chunks; c++) {
+            chunkEvaluators[c] = new RideSharingEvaluator(rideSharingEvaluator);
+        }
+    }
+
+    /**
+     * Applies to a chunk evaluator the settings made on the main evaluator since the
+     * chunk one was copied.
+     */
+    private void syncChunkEvaluator(RideSharingEvaluator chunkEvaluator) {
+        chunkEvaluator.setConstraints(rideSharingEvaluator.getConstraintMode(), rideSharingEvaluator.getViolationPenalty());
+        if (chunkEvaluator.getRouteCostCacheCapacity() != rideSharingEvaluator.getRouteCostCacheCapacity()) {
+            chunkEvaluator.setRouteCostCacheCapacity(rideSharingEvaluator.getRouteCostCacheCapacity());
+        }
+    }
+
+    /**
+     * @return the number of route costs found in the caches of the evaluator and of its chunk copies.
+     */
+    public long getRouteCostCacheHits() {
+        long hits = 0;
+        for (RideSharingEvaluator chunkEvaluator : chunkEvaluators) {
+            hits += chunkEvaluator.getRouteCostCacheHits();
+        }
+        return hits;
+    }
+
+    /**
+     * @return the number of route costs not found in the caches of the evaluator and of its chunk copies.
+     */
+    public long getRouteCostCacheMisses() {
+        long misses = 0;
+        for (RideSharingEvaluator chunkEvaluator : chunkEvaluators) {
+            misses += chunkEvaluator.getRouteCostCacheMisses();
+        }
+        return misses;
     }
 
     @Override
     public Set<Integer> makeCL() {
-        return IntStream.range(0, rideSharingEvaluator.getDomainSize()).boxed().collect(Collectors.toSet());
+        candidateList = new RideSharingCandidateList(rideSharingEvaluator.drivers, rideSharingEvaluator.riders,
+                rideSharingEvaluator.maxRequests, rideSharingEvaluator.getDomainElements());
+        return candidateList;
     }
 
     @Override
@@ -33,47 +228,145 @@ public class RideSharingTSGRASP extends AbstractTSGRASP<Integer> {
         return new ArrayList<>();
     }
 
-	@Override
-	public ArrayDeque<Integer> makeTL() {
-        Integer size = 2 * tenure;
+    @Override
+    public TabuList makeTL() {
+        // Elements are followed by the riders and then by the drivers attributes
+        return new TabuList(rideSharingEvaluator.getDomainSize() + rideSharingEvaluator.riders + rideSharingEvaluator.drivers);
+    }
 
-        ArrayDeque<Integer> aux = new ArrayDeque<Integer>(size);
-		for (int i = 0; i < size; i++) {
-			aux.add(fakeTLElem);
-		}
+    /**
+     * Checks whether an element entering or leaving the solution is tabu, through any of its attributes.
+     */
+    private boolean isTabu(int elem) {
+        int riders = rideSharingEvaluator.riders;
+        int domainSize = rideSharingEvaluator.getDomainSize();
+        return TL.isTabu(elem) || TL.isTabu(domainSize + elem % riders) || TL.isTabu(domainSize + riders + elem / riders);
+    }
+
+    /**
+     * Makes the attributes of an element entering or leaving the solution tabu.
+     */
+    private void makeTabu(int elem, int elementTenure) {
+        int riders = rideSharingEvaluator.riders;
+        int domainSize = rideSharingEvaluator.getDomainSize();
+        if (elementTenure > 0) {
+            TL.makeTabu(elem, elementTenure);
+        }
+        if (riderTenure > 0) {
+            TL.makeTabu(domainSize + elem % riders, riderTenure);
+        }
+        if (driverTenure > 0) {
+            TL.makeTabu(domainSize + riders + elem / riders, driverTenure);
+        }
+    }
 
-		return aux;
-	}
+    @Override
+    protected boolean isGranular(Integer candidate) {
+        return isGranular((int) candidate);
+    }
 
+    /**
+     * Same rule as the Candidate List: the rider is not served and the driver serves fewer
+     * than maxRequests riders.
+     */
     @Override
-    public void updateCL() {
-        Set<Integer> candidates = makeCL();
-        List<List<Integer>> ridersPerDriverLists = rideSharingEvaluator.getRidersPerDriverLists(sol);
-
-        // If driver is overloaded with the max requests, remove it all the riders possibilities for it
-        for (int driverIndex = 0; driverIndex < ridersPerDriverLists.size(); driverIndex++) {
-            if (ridersPerDriverLists.get(driverIndex).stream().filter(value -> value == 1).count() >= rideSharingEvaluator.maxRequests) {
-                for (int d = rideSharingEvaluator.riders * driverIndex; d < (rideSharingEvaluator.riders * driverIndex) + rideSharingEvaluator.riders; d++) {
-                    candidates.remove(d);
-                }
+    protected boolean isInsertable(Integer elem, Solution<Integer> sol) {
+        RideSharingSolution rideSharingSol = (RideSharingSolution) sol;
+        int riders = rideSharingEvaluator.riders;
+        return !rideSharingSol.isServed(elem % riders) && rideSharingSol.getLoad(elem / riders) < rideSharingEvaluator.maxRequests;
+    }
+
+    /**
+     * Hamming distance between the rider to driver assignments of two solutions, i.e. the
+     * number of riders served by different drivers, or served in only one of them.
+     */
+    @Override
+    protected int distance(Solution<Integer> a, Solution<Integer> b) {
+        RideSharingSolution x = (RideSharingSolution) a;
+        RideSharingSolution y = (RideSharingSolution) b;
+        int d = 0;
+        for (int rider = 0; rider < x.getRiders(); rider++) {
+            if (x.getDriver(rider) != y.getDriver(rider)) {
+                d++;
             }
         }
+        return d;
+    }
+
+    /**
+     * Writes the elements in the order of the solution list, which the moves scanning
+     * it depend on.
+     */
+    @Override
+    protected void writeSolution(DataOutput out, Solution<Integer> sol) throws IOException {
+        out.writeInt(sol.size());
+        for (int elem : sol) {
+            out.writeInt(elem);
+        }
+    }
 
-        // Remove the selected rider from all the other drivers possibilities
-        for (Integer solCandidate : sol) {
-            int rider = solCandidate % rideSharingEvaluator.riders;
-            for (int r = rider; r < rideSharingEvaluator.getDomainSize(); r = r + rideSharingEvaluator.riders) {
-                candidates.remove(r);
+    @Override
+    protected Solution<Integer> readSolution(DataInput in) throws IOException {
+        RideSharingSolution rideSharingSol = rideSharingEvaluator.createEmptySolution();
+        int riders = rideSharingEvaluator.riders;
+        for (int elements = in.readInt(); elements > 0; elements--) {
+            int elem = in.readInt();
+            if (elem < 0 || elem >= rideSharingEvaluator.getDomainSize()) {
+                throw new IOException("Element out of the domain: " + elem);
             }
+            rideSharingSol.assign(elem % riders, elem / riders);
         }
+        rideSharingEvaluator.evaluate(rideSharingSol);
+        return rideSharingSol;
+    }
 
-        CL = candidates;
+    @Override
+    protected int getCandidateIndex(Integer candidate) {
+        return candidate;
+    }
+
+    @Override
+    protected boolean isInsertionCostAffected(Integer candidate, Integer inserted) {
+        // Inserting a rider only changes the route of its driver
+        return candidate / rideSharingEvaluator.riders == inserted / rideSharingEvaluator.riders;
+    }
+
+    private boolean isGranular(int candidate) {
+        return nearestDrivers == 0 || rideSharingEvaluator.isAmongNearestDrivers(candidate, nearestDrivers);
+    }
+
+    @Override
+    public void updateCL() {
+        // The list follows the solution assignments, it is only rebuilt when the solution is replaced
+        candidateList.bind(currentSol());
+    }
+
+    private RideSharingSolution currentSol() {
+        return (RideSharingSolution) sol;
+    }
+
+    /**
+     * Applies a move to the current solution and updates its cost.
+     *
+     * @param candIn the element entering the solution, or -1 if none.
+     * @param candOut the element leaving the solution, or -1 if none.
+     */
+    private void applyMove(int candIn, int candOut) {
+        RideSharingSolution rideSharingSol = currentSol();
+        if (candOut >= 0) {
+            rideSharingSol.unassign(candOut % rideSharingEvaluator.riders);
+        }
+        if (candIn >= 0) {
+            rideSharingSol.assign(candIn % rideSharingEvaluator.riders, candIn / rideSharingEvaluator.riders);
+        }
+        rideSharingEvaluator.evaluate(sol);
+        metrics.increment(Counter.ACCEPTED_MOVES);
     }
 
     @Override
     public Solution<Integer> createEmptySol() {
         // Create empty solution, no riders are served and penalty is added.
-        Solution<Integer> emptySolution = new Solution<>();
+        Solution<Integer> emptySolution = rideSharingEvaluator.createEmptySolution();
         emptySolution.cost = rideSharingEvaluator.penalty * rideSharingEvaluator.riders;
         return emptySolution;
     }
@@ -89,6 +382,10 @@ public class RideSharingTSGRASP extends AbstractTSGRASP<Integer> {
 				return tabuSearch();
             case TABU_PROBABILISTIC_50_PERCENT:
                 return tabuSearch(0.5);
+            case REACTIVE_TABU_SEARCH:
+                return reactiveTabuSearch();
+            case ALNS:
+                return adaptiveLargeNeighbourhoodSearch();
 			default:
 				System.out.println("Method not implemented");
 				return sol;
@@ -96,124 +393,110 @@ public class RideSharingTSGRASP extends AbstractTSGRASP<Integer> {
     }
 
     private Solution<Integer> localSearchFirstImproving() {
-        Double minDeltaCost;
-		Integer bestCandIn = null, bestCandOut = null;
-
-		do {
-			minDeltaCost = Double.POSITIVE_INFINITY;
-			updateCL();
-
-            // Evaluate insertions
-			for (Integer candIn : CL) {
-				double deltaCost = rideSharingEvaluator.evaluateInsertionCost(candIn, sol);
-				if (deltaCost < -Double.MIN_VALUE) {
-					minDeltaCost = deltaCost;
-					bestCandIn = candIn;
-					bestCandOut = null;
-					break;
-				}
-			}
-
-            if (bestCandIn == null) {
-				// Evaluate removals
-				for (Integer candOut : sol) {
-					double deltaCost = rideSharingEvaluator.evaluateRemovalCost(candOut, sol);
-					if (deltaCost < -Double.MIN_VALUE) {
-						minDeltaCost = deltaCost;
-						bestCandIn = null;
-						bestCandOut = candOut;
-						break;
-					}
-				}
-
-				if (bestCandOut == null) {
-					// Evaluate exchanges
-					for (Integer candIn : CL) {
-						for (Integer candOut : sol) {
-							double deltaCost = rideSharingEvaluator.evaluateExchangeCost(candIn, candOut, sol);
-							if (deltaCost < -Double.MIN_VALUE) {
-								minDeltaCost = deltaCost;
-								bestCandIn = candIn;
-								bestCandOut = candOut;
-								break;
-							}
-						}
-					}
-				}
-			}
+        double minDeltaCost;
+        bestMoveIn = -1;
+        bestMoveOut = -1;
+
+        do {
+            updateCL();
+            minDeltaCost = nearestDrivers > 0 ? findFirstImprovingMove(true) : Double.POSITIVE_INFINITY;
+            if (minDeltaCost >= -Double.MIN_VALUE) {
+                minDeltaCost = findFirstImprovingMove(false);
+            }
 
             // Implement the best move, if it reduces the solution cost.
             if (minDeltaCost < -Double.MIN_VALUE) {
-                if (bestCandOut != null) {
-                    sol.remove(bestCandOut);
-                    CL.add(bestCandOut);
-                }
-                if (bestCandIn != null) {
-                    sol.add(bestCandIn);
-                    CL.remove(bestCandIn);
-                }
-                rideSharingEvaluator.evaluate(sol);
+                applyMove(bestMoveIn, bestMoveOut);
+            } else if (minDeltaCost < Double.POSITIVE_INFINITY) {
+                metrics.increment(Counter.REJECTED_MOVES);
             }
 
-        } while (minDeltaCost < -Double.MIN_VALUE);
+        } while (minDeltaCost < -Double.MIN_VALUE && !shouldStop());
 
         return sol;
     }
 
-    private Solution<Integer> localSearchBestImproving() {
-        Double minDeltaCost;
-		Integer bestCandIn = null, bestCandOut = null;
-
-		do {
-			minDeltaCost = Double.POSITIVE_INFINITY;
-			updateCL();
-
-            // Evaluate insertions
-			for (Integer candIn : CL) {
-				double deltaCost = rideSharingEvaluator.evaluateInsertionCost(candIn, sol);
-				if (deltaCost < minDeltaCost) {
-					minDeltaCost = deltaCost;
-					bestCandIn = candIn;
-					bestCandOut = null;
-				}
-			}
+    /**
+     * Scans the neighbourhood of the current solution (insertions, removals and exchanges)
+     * for an improving move, keeping it in {@link #bestMoveIn} and {@link #bestMoveOut}.
+     * Removals and exchanges are only scanned while no insertion was ever picked.
+     *
+     * @param granular whether elements entering the solution are restricted to the granular neighbourhood.
+     * @return the cost variation of the move found, or +inf if none improves the solution.
+     */
+    private double findFirstImprovingMove(boolean granular) {
+        double minDeltaCost = Double.POSITIVE_INFINITY;
+        long insertions = 0, removals = 0, exchanges = 0;
+
+        // Evaluate insertions
+        for (int candIn = candidateList.nextCandidate(0); candIn >= 0; candIn = candidateList.nextCandidate(candIn + 1)) {
+            if (granular && !isGranular(candIn)) {
+                continue;
+            }
+            double deltaCost = rideSharingEvaluator.getInsertionDelta(candIn, sol);
+            insertions++;
+            if (deltaCost < -Double.MIN_VALUE) {
+                minDeltaCost = deltaCost;
+                bestMoveIn = candIn;
+                bestMoveOut = -1;
+                break;
+            }
+        }
 
+        if (bestMoveIn < 0) {
             // Evaluate removals
-            for (Integer candOut : sol) {
-                double deltaCost = rideSharingEvaluator.evaluateRemovalCost(candOut, sol);
-                if (deltaCost < minDeltaCost) {
+            for (int i = 0; i < sol.size(); i++) {
+                int candOut = sol.get(i);
+                double deltaCost = rideSharingEvaluator.getRemovalDelta(candOut, sol);
+                removals++;
+                if (deltaCost < -Double.MIN_VALUE) {
                     minDeltaCost = deltaCost;
-                    bestCandIn = null;
-                    bestCandOut = candOut;
+                    bestMoveIn = -1;
+                    bestMoveOut = candOut;
+                    break;
                 }
             }
 
-            // Evaluate exchanges
-            for (Integer candIn : CL) {
-                for (Integer candOut : sol) {
-                    double deltaCost = rideSharingEvaluator.evaluateExchangeCost(candIn, candOut, sol);
-                    if (deltaCost < minDeltaCost) {
-                        minDeltaCost = deltaCost;
-                        bestCandIn = candIn;
-                        bestCandOut = candOut;
+            if (bestMoveOut < 0) {
+                // Evaluate exchanges
+                for (int candIn = candidateList.nextCandidate(0); candIn >= 0; candIn = candidateList.nextCandidate(candIn + 1)) {
+                    if (granular && !isGranular(candIn)) {
+                        continue;
+                    }
+                    for (int i = 0; i < sol.size(); i++) {
+                        int candOut = sol.get(i);
+                        double deltaCost = rideSharingEvaluator.getExchangeDelta(candIn, candOut, sol);
+                        exchanges++;
+                        if (deltaCost < -Double.MIN_VALUE) {
+                            minDeltaCost = deltaCost;
+                            bestMoveIn = candIn;
+                            bestMoveOut = candOut;
+                            break;
+                        }
                     }
                 }
             }
+        }
+
+        countEvaluations(insertions, removals, exchanges);
+        return minDeltaCost;
+    }
+
+    private Solution<Integer> localSearchBestImproving() {
+        double minDeltaCost;
+
+        do {
+            updateCL();
+            minDeltaCost = findBestGranularMove(false, false, 1.0, -Double.MIN_VALUE);
 
             // Implement the best move, if it reduces the solution cost.
             if (minDeltaCost < -Double.MIN_VALUE) {
-                if (bestCandOut != null) {
-                    sol.remove(bestCandOut);
-                    CL.add(bestCandOut);
-                }
-                if (bestCandIn != null) {
-                    sol.add(bestCandIn);
-                    CL.remove(bestCandIn);
-                }
-                rideSharingEvaluator.evaluate(sol);
+                applyMove(bestMoveIn, bestMoveOut);
+            } else if (minDeltaCost < Double.POSITIVE_INFINITY) {
+                metrics.increment(Counter.REJECTED_MOVES);
             }
 
-        } while (minDeltaCost < -Double.MIN_VALUE);
+        } while (minDeltaCost < -Double.MIN_VALUE && !shouldStop());
 
         return sol;
     }
@@ -223,76 +506,269 @@ public class RideSharingTSGRASP extends AbstractTSGRASP<Integer> {
     }
 
     private Solution<Integer> tabuSearch(Double percentage) {
-    	Double minDeltaCost;
-		Integer bestCandIn = null, bestCandOut = null;
-
-		do {
-			minDeltaCost = Double.POSITIVE_INFINITY;
-			updateCL();
-
-            // Evaluate insertions
-			for (Integer candIn : CL) {
-				if (rng.nextDouble() < percentage && !TL.contains(candIn)) {
-                    double deltaCost = rideSharingEvaluator.evaluateInsertionCost(candIn, sol);
-                    if (deltaCost < minDeltaCost) {
-                        minDeltaCost = deltaCost;
-                        bestCandIn = candIn;
-                        bestCandOut = null;
-                    }
-                }
-			}
+        double minDeltaCost;
 
-            // Evaluate removals
-            for (Integer candOut : sol) {
-                if (rng.nextDouble() < percentage && !TL.contains(candOut)) {
-                    double deltaCost = rideSharingEvaluator.evaluateRemovalCost(candOut, sol);
-                    if (deltaCost < minDeltaCost) {
-                        minDeltaCost = deltaCost;
-                        bestCandIn = null;
-                        bestCandOut = candOut;
-                    }
+        do {
+            updateCL();
+            minDeltaCost = findBestGranularMove(true, true, percentage, -Double.MIN_VALUE);
+
+            // Implement the best move, if it reduces the solution cost.
+            if (minDeltaCost < -Double.MIN_VALUE) {
+                TL.nextIteration();
+                if (bestMoveOut >= 0) {
+                    makeTabu(bestMoveOut, elementTenure);
+                }
+                if (bestMoveIn >= 0) {
+                    makeTabu(bestMoveIn, elementTenure);
                 }
+
+                applyMove(bestMoveIn, bestMoveOut);
+            } else if (minDeltaCost < Double.POSITIVE_INFINITY) {
+                metrics.increment(Counter.REJECTED_MOVES);
             }
 
-            // Evaluate exchanges
-            for (Integer candIn : CL) {
-                for (Integer candOut : sol) {
-                    if (rng.nextDouble() < percentage && !TL.contains(candIn) && !TL.contains(candOut)) {
-                        double deltaCost = rideSharingEvaluator.evaluateExchangeCost(candIn, candOut, sol);
-                        if (deltaCost < minDeltaCost) {
-                            minDeltaCost = deltaCost;
-                            bestCandIn = candIn;
-                            bestCandOut = candOut;
-                        }
-                    }
-                }
+        } while (minDeltaCost < -Double.MIN_VALUE && !shouldStop());
+
+        return sol;
+    }
+
+    /**
+     * Tabu walk making the best admissible move at each step, even when it worsens the
+     * solution. Tabu moves are admissible when they lead to a solution better than the
+     * best one of the walk. The current solution ends as the best solution of the walk.
+     */
+    private Solution<Integer> reactiveTabuSearch() {
+        RideSharingSolution walkBestSol = currentSol().copy();
+        double walkBestCost = sol.cost;
+        double reactiveTenure = Math.max(1, elementTenure);
+        int maxTenure = Math.max(1, rideSharingEvaluator.riders);
+        int lastImprovement = 0;
+        int lastTenureChange = 0;
+
+        visitedSolutions.clear();
+        visitedSolutions.visit(currentSol().getHash(), 0);
+        for (int move = 1; move <= walkMaxMoves && move - lastImprovement <= walkMaxMovesWithoutImprovement && !shouldStop(); move++) {
+            updateCL();
+            aspirationCost = walkBestCost;
+            double minDeltaCost = findBestGranularMove(true, false, 1.0, Double.POSITIVE_INFINITY);
+            aspirationCost = Double.NEGATIVE_INFINITY;
+            if (minDeltaCost == Double.POSITIVE_INFINITY) {
+                break;
             }
 
-            // Implement the best move, if it reduces the solution cost.
-            if (minDeltaCost < -Double.MIN_VALUE) {  
-                TL.poll();
-                if (bestCandOut != null) {
-                    sol.remove(bestCandOut);
-                    CL.add(bestCandOut);
-                    TL.add(bestCandOut);
-                } else {
-                    TL.add(fakeTLElem);
-                }
+            int appliedTenure = (int) Math.round(reactiveTenure);
+            TL.nextIteration();
+            if (bestMoveOut >= 0) {
+                makeTabu(bestMoveOut, appliedTenure);
+            }
+            if (bestMoveIn >= 0) {
+                makeTabu(bestMoveIn, appliedTenure);
+            }
+            applyMove(bestMoveIn, bestMoveOut);
 
-                TL.poll();
-                if (bestCandIn != null) {
-                    sol.add(bestCandIn);
-                    CL.remove(bestCandIn);
-                    TL.add(bestCandIn);
-                } else {
-                    TL.add(fakeTLElem);
-                }
+            if (sol.cost < walkBestCost) {
+                walkBestCost = sol.cost;
+                walkBestSol = currentSol().copy();
+                lastImprovement = move;
+            }
 
-                rideSharingEvaluator.evaluate(sol);
+            if (visitedSolutions.visit(currentSol().getHash(), move) >= 0) {
+                // Cycling, keep the moves tabu for longer
+                reactiveTenure = Math.min(maxTenure, reactiveTenure * 1.2 + 1);
+                lastTenureChange = move;
+            } else if (move - lastTenureChange > 2 * reactiveTenure) {
+                reactiveTenure = Math.max(1, reactiveTenure * 0.9);
+                lastTenureChange = move;
             }
+        }
 
-        } while (minDeltaCost < -Double.MIN_VALUE);
+        sol = walkBestSol;
+        updateCL();
+        return sol;
+    }
 
+    /**
+     * Destroys and repairs the current solution with the operators of
+     * {@link AdaptiveLargeNeighbourhoodSearch}. The current solution ends as the best
+     * solution found.
+     */
+    private Solution<Integer> adaptiveLargeNeighbourhoodSearch() {
+        sol = alns.search(currentSol(), rng, this::shouldStop, metrics);
+        updateCL();
         return sol;
     }
+
+    /**
+     * Finds the best move of the granular neighbourhood, falling back to the whole
+     * neighbourhood when the granular one has no acceptable move.
+     *
+     * @param acceptedDelta the cost variation a granular move must be lower than to be accepted.
+     * @return the cost variation of the best move.
+     * @see #findBestMove(boolean, boolean, double, boolean)
+     */
+    private double findBestGranularMove(boolean tabu, boolean sample, double percentage, double acceptedDelta) {
+        if (nearestDrivers > 0) {
+            double minDeltaCost = findBestMove(tabu, sample, percentage, true);
+            if (minDeltaCost < acceptedDelta) {
+                return minDeltaCost;
+            }
+        }
+        return findBestMove(tabu, sample, percentage, false);
+    }
+
+    /**
+     * Scores the neighbourhood of the current solution (insertions, removals and
+     * exchanges) and keeps the best move in {@link #bestMoveIn} and {@link #bestMoveOut}.
+     *
+     * @param tabu whether moves involving tabu elements are skipped, unless they satisfy the aspiration criterion.
+     * @param sample whether only a random sample of the moves is considered.
+     * @param percentage the probability of a move being considered when sampling.
+     * @param granular whether elements entering the solution are restricted to the granular neighbourhood.
+     * @return the cost variation of the best move.
+     */
+    private double findBestMove(boolean tabu, boolean sample, double percentage, boolean granular) {
+        // Snapshot the neighbourhood and price every driver, so that scoring only reads shared state
+        rideSharingEvaluator.evaluate(sol);
+        candidatesCount = 0;
+        for (int candIn = candidateList.nextCandidate(0); candIn >= 0; candIn = candidateList.nextCandidate(candIn + 1)) {
+            if (!granular || isGranular(candIn)) {
+                candidatesSnapshot[candidatesCount++] = candIn;
+            }
+        }
+        solCount = sol.size();
+        for (int i = 0; i < solCount; i++) {
+            solSnapshot[i] = sol.get(i);
+        }
+
+        int moves = candidatesCount + solCount + candidatesCount * solCount;
+        if (sample) {
+            sampleMoves(moves, percentage);
+        }
+
+        int chunks = moves < MIN_PARALLEL_MOVES ? 1 : neighbourhoodChunks;
+        if (chunks == 1) {
+            scoreMoves(rideSharingEvaluator, 0, moves, tabu, sample, 0);
+        } else {
+            ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[chunks];
+            for (int c = 0; c < chunks; c++) {
+                syncChunkEvaluator(chunkEvaluators[c]);
+                int chunk = c;
+                tasks[c] = neighbourhoodPool.submit(() -> scoreMoves(chunkEvaluators[chunk],
+                        (int) ((long) moves * chunk / chunks), (int) ((long) moves * (chunk + 1) / chunks), tabu, sample, chunk));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+
+        double minDeltaCost = Double.POSITIVE_INFINITY;
+        int bestMove = -1;
+        for (int c = 0; c < chunks; c++) {
+            if (chunkBestDelta[c] < minDeltaCost) {
+                minDeltaCost = chunkBestDelta[c];
+                bestMove = chunkBestMove[c];
+            }
+        }
+
+        bestMoveIn = bestMove < 0 ? -1 : getMoveIn(bestMove);
+        bestMoveOut = bestMove < 0 ? -1 : getMoveOut(bestMove);
+        return minDeltaCost;
+    }
+
+    /**
+     * Draws, in move order, which moves are considered by a probabilistic tabu search.
+     */
+    private void sampleMoves(int moves, double percentage) {
+        int words = (moves + 63) >>> 6;
+        if (sampledMoves.length < words) {
+            sampledMoves = new long[words];
+        }
+        for (int i = 0; i < words; i++) {
+            sampledMoves[i] = 0;
+        }
+        for (int move = 0; move < moves; move++) {
+            if (rng.nextDouble() < percentage) {
+                sampledMoves[move >>> 6] |= 1L << move;
+            }
+        }
+    }
+
+    /**
+     * Scores a contiguous range of moves, keeping the first best one of the range.
+     */
+    private void scoreMoves(RideSharingEvaluator evaluator, int from, int to, boolean tabu, boolean sample, int chunk) {
+        double minDeltaCost = Double.POSITIVE_INFINITY;
+        int bestMove = -1;
+        long insertions = 0, removals = 0, exchanges = 0, tabuHits = 0, aspirations = 0;
+
+        for (int move = from; move < to; move++) {
+            if (sample && (sampledMoves[move >>> 6] & (1L << move)) == 0) {
+                continue;
+            }
+
+            int candIn = getMoveIn(move);
+            int candOut = getMoveOut(move);
+            boolean tabuMove = tabu && ((candIn >= 0 && isTabu(candIn)) || (candOut >= 0 && isTabu(candOut)));
+            if (tabuMove && aspirationCost == Double.NEGATIVE_INFINITY) {
+                tabuHits++;
+                continue;
+            }
+
+            double deltaCost;
+            if (candOut < 0) {
+                deltaCost = evaluator.getInsertionDelta(candIn, sol);
+                insertions++;
+            } else if (candIn < 0) {
+                deltaCost = evaluator.getRemovalDelta(candOut, sol);
+                removals++;
+            } else {
+                deltaCost = evaluator.getExchangeDelta(candIn, candOut, sol);
+                exchanges++;
+            }
+
+            if (tabuMove) {
+                if (!(sol.cost + deltaCost < aspirationCost)) {
+                    tabuHits++;
+                    continue;
+                }
+                aspirations++;
+            }
+            if (deltaCost < minDeltaCost) {
+                minDeltaCost = deltaCost;
+                bestMove = move;
+            }
+        }
+
+        chunkBestDelta[chunk] = minDeltaCost;
+        chunkBestMove[chunk] = bestMove;
+        countEvaluations(insertions, removals, exchanges);
+        metrics.add(Counter.TABU_HITS, tabuHits);
+        metrics.add(Counter.ASPIRATIONS, aspirations);
+    }
+
+    private void countEvaluations(long insertions, long removals, long exchanges) {
+        metrics.add(Counter.INSERTION_EVALUATIONS, insertions);
+        metrics.add(Counter.REMOVAL_EVALUATIONS, removals);
+        metrics.add(Counter.EXCHANGE_EVALUATIONS, exchanges);
+    }
+
+    private int getMoveIn(int move) {
+        if (move < candidatesCount) {
+            return candidatesSnapshot[move];
+        }
+        if (move < candidatesCount + solCount) {
+            return -1;
+        }
+        return candidatesSnapshot[(move - candidatesCount - solCount) / solCount];
+    }
+
+    private int getMoveOut(int move) {
+        if (move < candidatesCount) {
+            return -1;
+        }
+        if (move < candidatesCount + solCount) {
+            return solSnapshot[move - candidatesCount];
+        }
+        return solSnapshot[(move - candidatesCount - solCount) % solCount];
+    }
 }
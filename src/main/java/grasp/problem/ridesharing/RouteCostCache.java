@@ -0,0 +1,146 @@
+package grasp.problem.ridesharing;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache of route costs, keyed by the driver index followed by the bitmask of
+ * its riders. Backed by an open addressing table of primitive keys, so neither lookups
+ * nor insertions allocate. Once full, entries are evicted by the CLOCK policy: a hand
+ * sweeps the table, sparing (once) the entries used since its last pass.
+ */
+class RouteCostCache {
+
+    private static final long EMPTY = -1;
+
+    private final long[] keys;
+    private final long[] costs;
+    private final boolean[] referenced;
+    private final int maxEntries;
+    private int size;
+    private int hand;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacity the maximum number of entries, rounded up to a power of two.
+     */
+    RouteCostCache(int capacity) {
+        int maxEntries = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        // The table is kept at most half full, so probe sequences stay short
+        this.keys = new long[2 * maxEntries];
+        this.costs = new long[2 * maxEntries];
+        this.referenced = new boolean[2 * maxEntries];
+        this.maxEntries = maxEntries;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Gives the cost of a route.
+     *
+     * @param key the key of the route, non negative.
+     * @return the cost of the route, or -1 if it is not cached.
+     */
+    long get(long key) {
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            misses++;
+            return -1;
+        }
+        hits++;
+        referenced[slot] = true;
+        return costs[slot];
+    }
+
+    /**
+     * Caches the cost of a route not cached yet, evicting another one if the cache is full.
+     */
+    void put(long key, long cost) {
+        if (size == maxEntries) {
+            evict();
+        }
+        int slot = find(key);
+        keys[slot] = key;
+        costs[slot] = cost;
+        referenced[slot] = false;
+        size++;
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    long getEvictions() {
+        return evictions;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * @return the hash of a key, whose low bits give its home slot.
+     */
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void evict() {
+        int mask = keys.length - 1;
+        while (true) {
+            if (keys[hand] != EMPTY) {
+                if (!referenced[hand]) {
+                    remove(hand);
+                    evictions++;
+                    return;
+                }
+                referenced[hand] = false;
+            }
+            hand = (hand + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes the entry of a slot, shifting back the entries of its probe sequence so that
+     * no tombstone is needed.
+     */
+    private void remove(int slot) {
+        int mask = keys.length - 1;
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            // The entry may fill the free slot if its home is not within (free, next]
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                costs[free] = costs[next];
+                referenced[free] = referenced[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[free] = EMPTY;
+        size--;
+    }
+
+}
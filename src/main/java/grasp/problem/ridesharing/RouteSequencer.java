@@ -0,0 +1,243 @@
+package grasp.problem.ridesharing;
+
+import java.util.Arrays;
+
+/**
+ * Finds the order in which a driver visits the origins (pickups) and destinations
+ * (dropoffs) of its riders, from the driver origin up to the driver destination, so
+ * that the route is as short as possible while every rider is picked up before being
+ * dropped off.
+ *
+ * Routes of up to {@link #EXACT_MAX_RIDERS} riders are sequenced exactly, by dynamic
+ * programming over the subsets of visited stops. Longer routes are built by cheapest
+ * insertion of the riders and then improved by 2-opt. The buffers are reused from a
+ * call to the next, so a sequencer must not be shared between threads.
+ */
+class RouteSequencer {
+
+    /**
+     * the number of riders up to which routes are sequenced exactly
+     */
+    static final int EXACT_MAX_RIDERS = 5;
+
+    private static final long UNREACHED = Long.MAX_VALUE;
+
+    private final long[] distanceMatrix;
+    private final int nodes;
+
+    /**
+     * the nodes of the stops: the pickups of the riders, followed by their dropoffs
+     */
+    private int[] stopNodes;
+
+    /**
+     * the shortest distance from the driver origin through each subset of the stops,
+     * ending at each stop, indexed by subset * stops + last stop
+     */
+    private final long[] shortestPaths;
+
+    /**
+     * the heuristic route, as a sequence of stops, its size, and the position of each stop in it
+     */
+    private int[] route;
+    private int routeSize;
+    private int[] stopPositions;
+
+    RouteSequencer(long[] distanceMatrix, int nodes, int riders) {
+        this.distanceMatrix = distanceMatrix;
+        this.nodes = nodes;
+        int exactStops = 2 * Math.min(riders, EXACT_MAX_RIDERS);
+        this.shortestPaths = new long[(1 << exactStops) * Math.max(1, exactStops)];
+        this.stopNodes = new int[2 * riders];
+        this.route = new int[2 * riders];
+        this.stopPositions = new int[2 * riders];
+    }
+
+    /**
+     * Computes the length of the shortest route found through the stops of some riders.
+     *
+     * @param origin the driver origin node.
+     * @param destination the driver destination node.
+     * @param pickupNodes the origin nodes of the riders.
+     * @param dropoffNodes the destination nodes of the riders.
+     * @param riders the number of riders served.
+     * @return the length of the route, optimal up to {@link #EXACT_MAX_RIDERS} riders.
+     */
+    long sequence(int origin, int destination, int[] pickupNodes, int[] dropoffNodes, int riders) {
+        if (riders == 0) {
+            return distance(origin, destination);
+        }
+
+        setStops(pickupNodes, dropoffNodes, riders);
+        return riders <= EXACT_MAX_RIDERS ? sequenceExactly(origin, destination, riders) : sequenceHeuristically(origin, destination, riders);
+    }
+
+    /**
+     * Computes the length of the route built by cheapest insertion and 2-opt, whatever
+     * the number of riders, e.g. to compare it with the exact one.
+     *
+     * @see #sequence(int, int, int[], int[], int)
+     */
+    long sequenceHeuristically(int origin, int destination, int[] pickupNodes, int[] dropoffNodes, int riders) {
+        if (riders == 0) {
+            return distance(origin, destination);
+        }
+
+        setStops(pickupNodes, dropoffNodes, riders);
+        return sequenceHeuristically(origin, destination, riders);
+    }
+
+    /**
+     * @return the stops of the last route sequenced heuristically, in visiting order:
+     *         rider r for its pickup and riders + r for its dropoff.
+     */
+    int[] getHeuristicRoute() {
+        return Arrays.copyOf(route, routeSize);
+    }
+
+    private void setStops(int[] pickupNodes, int[] dropoffNodes, int riders) {
+        if (stopNodes.length < 2 * riders) {
+            stopNodes = new int[2 * riders];
+            route = new int[2 * riders];
+            stopPositions = new int[2 * riders];
+        }
+        System.arraycopy(pickupNodes, 0, stopNodes, 0, riders);
+        System.arraycopy(dropoffNodes, 0, stopNodes, riders, riders);
+    }
+
+    private long sequenceExactly(int origin, int destination, int riders) {
+        int stops = 2 * riders;
+        int allStops = (1 << stops) - 1;
+        Arrays.fill(shortestPaths, 0, (allStops + 1) * stops, UNREACHED);
+        for (int pickup = 0; pickup < riders; pickup++) {
+            shortestPaths[(1 << pickup) * stops + pickup] = distance(origin, stopNodes[pickup]);
+        }
+
+        // Subsets are visited before their supersets, so each path is final when extended
+        for (int visited = 1; visited < allStops; visited++) {
+            for (int last = 0; last < stops; last++) {
+                long length = shortestPaths[visited * stops + last];
+                if (length == UNREACHED) {
+                    continue;
+                }
+                int lastNode = stopNodes[last];
+                for (int next = 0; next < stops; next++) {
+                    int nextBit = 1 << next;
+                    if ((visited & nextBit) != 0 || (next >= riders && (visited & (1 << (next - riders))) == 0)) {
+                        continue;
+                    }
+                    int state = (visited | nextBit) * stops + next;
+                    long nextLength = length + distance(lastNode, stopNodes[next]);
+                    if (nextLength < shortestPaths[state]) {
+                        shortestPaths[state] = nextLength;
+                    }
+                }
+            }
+        }
+
+        long shortest = UNREACHED;
+        for (int last = riders; last < stops; last++) {
+            long length = shortestPaths[allStops * stops + last];
+            if (length != UNREACHED) {
+                shortest = Math.min(shortest, length + distance(stopNodes[last], destination));
+            }
+        }
+        return shortest;
+    }
+
+    private long sequenceHeuristically(int origin, int destination, int riders) {
+        // Cheapest insertion of the pickup and then the dropoff of each rider
+        routeSize = 0;
+        for (int rider = 0; rider < riders; rider++) {
+            int pickupNode = stopNodes[rider];
+            int dropoffNode = stopNodes[riders + rider];
+            long bestIncrease = Long.MAX_VALUE;
+            int bestPickupPosition = 0, bestDropoffPosition = 0;
+            for (int i = 0; i <= routeSize; i++) {
+                int before = i == 0 ? origin : stopNodes[route[i - 1]];
+                int after = i == routeSize ? destination : stopNodes[route[i]];
+                long pickupIncrease = distance(before, pickupNode) + distance(pickupNode, after) - distance(before, after);
+                // The dropoff right after the pickup, then after each of the following stops
+                long increase = distance(before, pickupNode) + distance(pickupNode, dropoffNode) + distance(dropoffNode, after) - distance(before, after);
+                if (increase < bestIncrease) {
+                    bestIncrease = increase;
+                    bestPickupPosition = i;
+                    bestDropoffPosition = i;
+                }
+                for (int j = i; j < routeSize; j++) {
+                    int dropoffBefore = stopNodes[route[j]];
+                    int dropoffAfter = j + 1 == routeSize ? destination : stopNodes[route[j + 1]];
+                    increase = pickupIncrease + distance(dropoffBefore, dropoffNode) + distance(dropoffNode, dropoffAfter) - distance(dropoffBefore, dropoffAfter);
+                    if (increase < bestIncrease) {
+                        bestIncrease = increase;
+                        bestPickupPosition = i;
+                        bestDropoffPosition = j + 1;
+                    }
+                }
+            }
+
+            // Positions are in the route before the insertions, the dropoff shifts after the pickup
+            System.arraycopy(route, bestDropoffPosition, route, bestDropoffPosition + 1, routeSize - bestDropoffPosition);
+            route[bestDropoffPosition] = riders + rider;
+            System.arraycopy(route, bestPickupPosition, route, bestPickupPosition + 1, routeSize + 1 - bestPickupPosition);
+            route[bestPickupPosition] = rider;
+            routeSize += 2;
+        }
+
+        improveBy2Opt(origin, destination, routeSize, riders);
+
+        long length = distance(origin, stopNodes[route[0]]) + distance(stopNodes[route[routeSize - 1]], destination);
+        for (int i = 0; i < routeSize - 1; i++) {
+            length += distance(stopNodes[route[i]], stopNodes[route[i + 1]]);
+        }
+        return length;
+    }
+
+    /**
+     * Reverses segments of the route while it shortens it, keeping only the reversals
+     * that do not move a dropoff before its pickup.
+     */
+    private void improveBy2Opt(int origin, int destination, int routeSize, int riders) {
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < routeSize; i++) {
+                stopPositions[route[i]] = i;
+            }
+            for (int i = 0; i < routeSize - 1 && !improved; i++) {
+                int before = i == 0 ? origin : stopNodes[route[i - 1]];
+                for (int j = i + 1; j < routeSize && !improved; j++) {
+                    int after = j + 1 == routeSize ? destination : stopNodes[route[j + 1]];
+                    long change = distance(before, stopNodes[route[j]]) + distance(stopNodes[route[i]], after)
+                            - distance(before, stopNodes[route[i]]) - distance(stopNodes[route[j]], after);
+                    if (change < 0 && isReversible(i, j, riders)) {
+                        for (int from = i, to = j; from < to; from++, to--) {
+                            int stop = route[from];
+                            route[from] = route[to];
+                            route[to] = stop;
+                        }
+                        improved = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that no rider has both its pickup and its dropoff in a segment of the route.
+     */
+    private boolean isReversible(int from, int to, int riders) {
+        for (int i = from; i <= to; i++) {
+            int stop = route[i];
+            if (stop < riders && stopPositions[riders + stop] <= to) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long distance(int origin, int destination) {
+        return distanceMatrix[origin * nodes + destination];
+    }
+
+}
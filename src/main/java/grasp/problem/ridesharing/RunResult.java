@@ -0,0 +1,295 @@
+package grasp.problem.ridesharing;
+
+import grasp.framework.AbstractTSGRASP.ConstructiveMethod;
+import grasp.framework.AbstractTSGRASP.LocalSearchMethod;
+import grasp.framework.Solution;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The result of a run of the solver on an instance, in a form that can be written as a
+ * JSON line or a CSV row and read back.
+ *
+ * A JSON line looks like:
+ * <pre>
+ * {"instance":"P_N16","constructive_method":"STANDARD","local_search_method":"TABU_SEARCH","seed":0,
+ *  "cost":175.0,"served_riders":5,"time_ms":69,"routes":[[0,1,4],[],[2,3]],"metrics":{"iterations":100}}
+ * </pre>
+ * and a CSV row holds the same values under {@link #CSV_HEADER}, the routes separated
+ * by '|', the riders of a route by spaces, and the metrics as {@code name=value} pairs
+ * separated by ';'.
+ */
+public final class RunResult {
+
+    public static final String CSV_HEADER = "instance,constructive_method,local_search_method,seed,cost,served_riders,time_ms,riders_per_driver,metrics";
+
+    /**
+     * Seed of the runs whose seed was not recorded
+     */
+    public static final long UNKNOWN_SEED = -1;
+
+    private final String instance;
+    private final ConstructiveMethod constructiveMethod;
+    private final LocalSearchMethod localSearchMethod;
+    private final long seed;
+    private final double cost;
+    private final long timeMs;
+
+    /**
+     * The riders served by each driver, by index
+     */
+    private final List<List<Integer>> routes;
+
+    /**
+     * The solver metrics of the run, empty if they were not collected
+     */
+    private final Map<String, Long> metrics;
+
+    public RunResult(String instance, ConstructiveMethod constructiveMethod, LocalSearchMethod localSearchMethod, long seed,
+                     double cost, long timeMs, List<List<Integer>> routes, Map<String, Long> metrics) {
+        this.instance = instance;
+        this.constructiveMethod = constructiveMethod;
+        this.localSearchMethod = localSearchMethod;
+        this.seed = seed;
+        this.cost = cost;
+        this.timeMs = timeMs;
+        List<List<Integer>> routesCopy = new ArrayList<>(routes.size());
+        for (List<Integer> route : routes) {
+            routesCopy.add(Collections.unmodifiableList(new ArrayList<>(route)));
+        }
+        this.routes = Collections.unmodifiableList(routesCopy);
+        this.metrics = Collections.unmodifiableMap(new LinkedHashMap<>(metrics));
+    }
+
+    /**
+     * Gives the result of a run from the solution found, evaluated.
+     */
+    public static RunResult of(String instance, ConstructiveMethod constructiveMethod, LocalSearchMethod localSearchMethod, long seed,
+                               RideSharingEvaluator evaluator, Solution<Integer> solution, long timeMs, Map<String, Long> metrics) {
+        List<List<Integer>> routes = new ArrayList<>();
+        for (List<Integer> served : evaluator.getRidersPerDriverLists(solution)) {
+            List<Integer> route = new ArrayList<>();
+            for (int rider = 0; rider < served.size(); rider++) {
+                if (served.get(rider) > 0) {
+                    route.add(rider);
+                }
+            }
+            routes.add(route);
+        }
+        return new RunResult(instance, constructiveMethod, localSearchMethod, seed, solution.cost, timeMs, routes, metrics);
+    }
+
+    public String getInstance() {
+        return instance;
+    }
+
+    public ConstructiveMethod getConstructiveMethod() {
+        return constructiveMethod;
+    }
+
+    public LocalSearchMethod getLocalSearchMethod() {
+        return localSearchMethod;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    public List<List<Integer>> getRoutes() {
+        return routes;
+    }
+
+    public int getServedRiders() {
+        int served = 0;
+        for (List<Integer> route : routes) {
+            served += route.size();
+        }
+        return served;
+    }
+
+    public Map<String, Long> getMetrics() {
+        return metrics;
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder(256)
+                .append("{\"instance\":").append(Json.quote(instance))
+                .append(",\"constructive_method\":").append(Json.quote(constructiveMethod.name()))
+                .append(",\"local_search_method\":").append(Json.quote(localSearchMethod.name()))
+                .append(",\"seed\":").append(seed)
+                .append(",\"cost\":").append(cost)
+                .append(",\"served_riders\":").append(getServedRiders())
+                .append(",\"time_ms\":").append(timeMs)
+                .append(",\"routes\":[");
+        for (int driver = 0; driver < routes.size(); driver++) {
+            json.append(driver == 0 ? "[" : ",[");
+            List<Integer> route = routes.get(driver);
+            for (int i = 0; i < route.size(); i++) {
+                json.append(i == 0 ? "" : ",").append(route.get(i));
+            }
+            json.append(']');
+        }
+        json.append("],\"metrics\":{");
+        boolean first = true;
+        for (Map.Entry<String, Long> metric : metrics.entrySet()) {
+            json.append(first ? "" : ",").append(Json.quote(metric.getKey())).append(':').append(metric.getValue());
+            first = false;
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Reads a result written by {@link #toJson()}.
+     *
+     * @throws IllegalArgumentException if the line is not a valid result.
+     */
+    @SuppressWarnings("unchecked")
+    public static RunResult fromJson(String line) {
+        Map<String, Object> json = (Map<String, Object>) Json.parse(line);
+        List<List<Integer>> routes = new ArrayList<>();
+        for (Object route : (List<Object>) required(json, "routes")) {
+            routes.add(((List<Object>) route).stream().map(rider -> ((Number) rider).intValue()).collect(Collectors.toList()));
+        }
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        ((Map<String, Object>) json.getOrDefault("metrics", Collections.emptyMap()))
+                .forEach((name, value) -> metrics.put(name, ((Number) value).longValue()));
+        return new RunResult((String) required(json, "instance"),
+                ConstructiveMethod.valueOf((String) required(json, "constructive_method")),
+                LocalSearchMethod.valueOf((String) required(json, "local_search_method")),
+                ((Number) json.getOrDefault("seed", UNKNOWN_SEED)).longValue(),
+                ((Number) required(json, "cost")).doubleValue(),
+                ((Number) required(json, "time_ms")).longValue(),
+                routes, metrics);
+    }
+
+    /**
+     * Writes this result as a CSV row, quoting the fields that contain a comma, a
+     * double quote or a line break as in RFC 4180, e.g. an instance name.
+     */
+    public String toCsvRow() {
+        return Stream.of(instance, constructiveMethod.name(), localSearchMethod.name(), Long.toString(seed),
+                Double.toString(cost), Integer.toString(getServedRiders()), Long.toString(timeMs),
+                routes.stream()
+                        .map(route -> route.stream().map(String::valueOf).collect(Collectors.joining(" ")))
+                        .collect(Collectors.joining("|")),
+                metrics.entrySet().stream()
+                        .map(metric -> metric.getKey() + "=" + metric.getValue())
+                        .collect(Collectors.joining(";")))
+                .map(RunResult::quoteCsv)
+                .collect(Collectors.joining(","));
+    }
+
+    private static String quoteCsv(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Splits a CSV row into its fields, unquoting them as in RFC 4180.
+     *
+     * @throws IllegalArgumentException if a quoted field is not terminated.
+     */
+    static List<String> splitCsv(String row) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < row.length(); i++) {
+            char c = row.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < row.length() && row.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field in row: " + row);
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Reads a CSV row, given the columns of its header. Only the columns of
+     * {@link #CSV_HEADER} up to riders_per_driver are required, so that the reports
+     * written before the metrics column was added can be read too.
+     *
+     * @throws IllegalArgumentException if the row is not a valid result.
+     */
+    public static RunResult fromCsv(String row, List<String> header) {
+        List<String> values = splitCsv(row);
+        if (values.size() != header.size()) {
+            throw new IllegalArgumentException("Expected " + header.size() + " columns in row: " + row);
+        }
+        Map<String, String> columns = new LinkedHashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            columns.put(header.get(i), values.get(i));
+        }
+
+        List<List<Integer>> routes = new ArrayList<>();
+        for (String route : required(columns, "riders_per_driver").split("\\|", -1)) {
+            List<Integer> riders = new ArrayList<>();
+            for (String rider : route.trim().split(" ")) {
+                if (!rider.isEmpty()) {
+                    riders.add(Integer.parseInt(rider));
+                }
+            }
+            routes.add(riders);
+        }
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        for (String metric : columns.getOrDefault("metrics", "").split(";")) {
+            if (!metric.isEmpty()) {
+                int separator = metric.indexOf('=');
+                metrics.put(metric.substring(0, separator), Long.parseLong(metric.substring(separator + 1)));
+            }
+        }
+        return new RunResult(required(columns, "instance"),
+                ConstructiveMethod.valueOf(required(columns, "constructive_method")),
+                LocalSearchMethod.valueOf(required(columns, "local_search_method")),
+                Long.parseLong(columns.getOrDefault("seed", Long.toString(UNKNOWN_SEED))),
+                Double.parseDouble(required(columns, "cost")),
+                Long.parseLong(required(columns, "time_ms")),
+                routes, metrics);
+    }
+
+    private static <V> V required(Map<String, V> values, String key) {
+        V value = values.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + key);
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+}
@@ -0,0 +1,80 @@
+package grasp.problem.ridesharing;
+
+import java.util.Arrays;
+
+/**
+ * Set of the solutions visited by a tabu walk, identified by their hashes and
+ * mapped to the iteration they were last visited. Backed by an open addressing
+ * table of primitive keys, so visiting a solution does not allocate.
+ */
+class VisitedSolutions {
+
+    private long[] hashes;
+    private int[] iterations;
+    private boolean[] used;
+    private int size;
+
+    VisitedSolutions() {
+        allocate(256);
+    }
+
+    /**
+     * Records a visit to a solution.
+     *
+     * @param hash the hash of the solution.
+     * @param iteration the iteration of the visit.
+     * @return the iteration of the previous visit, or -1 if the solution was not visited before.
+     */
+    int visit(long hash, int iteration) {
+        int slot = find(hash);
+        if (used[slot]) {
+            int previous = iterations[slot];
+            iterations[slot] = iteration;
+            return previous;
+        }
+
+        used[slot] = true;
+        hashes[slot] = hash;
+        iterations[slot] = iteration;
+        if (++size > hashes.length / 2) {
+            grow();
+        }
+        return -1;
+    }
+
+    void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private int find(long hash) {
+        int mask = hashes.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (used[slot] && hashes[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldHashes = hashes;
+        int[] oldIterations = iterations;
+        boolean[] oldUsed = used;
+        allocate(2 * oldHashes.length);
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldUsed[i]) {
+                int slot = find(oldHashes[i]);
+                used[slot] = true;
+                hashes[slot] = oldHashes[i];
+                iterations[slot] = oldIterations[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        hashes = new long[capacity];
+        iterations = new int[capacity];
+        used = new boolean[capacity];
+    }
+
+}
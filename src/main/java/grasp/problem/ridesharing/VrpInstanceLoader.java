@@ -0,0 +1,377 @@
+package grasp.problem.ridesharing;
+
+import grasp.framework.AbstractTSGRASP;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Loads ride sharing instances from TSPLIB/CVRP {@code .vrp} files.
+ *
+ * The file is parsed by section keywords: the {@code KEY : VALUE} specification
+ * lines, then the NODE_COORD_SECTION (one {@code id x y} line per node, ended by
+ * the next section or EOF). Only EUC_2D distances are supported.
+ *
+ * Which nodes are the drivers and riders origins and destinations is read from a
+ * properties file next to the instance, with the same name and the
+ * {@code .properties} extension, e.g.
+ *
+ * <pre>
+ * drivers.origins = 0-4
+ * drivers.destinations = 31
+ * riders.origins = 5-30
+ * riders.destinations = 31
+ * maxRequests = 4
+ * maxDrivingTime = 110
+ * penalty = 100
+ * </pre>
+ *
+ * Nodes are 0-based indexes in the NODE_COORD_SECTION, given as comma separated
+ * indexes or ranges. A single destination is shared by all drivers (or riders).
+ *
+ * The parsed instance and its distance matrix are written to a binary cache in the
+ * {@code cache} directory next to the instances directory, which is memory-mapped
+ * on the next loads as long as the instance and its properties are not modified.
+ * The cache stores the distances as ints, half the size of the {@code long} matrix
+ * the evaluator indexes: they are rounded distances between int coordinates, and
+ * an instance with a distance beyond {@link Integer#MAX_VALUE} is just not cached.
+ * Writing the cache is best-effort, e.g. a read-only instances directory only
+ * costs the parsing at every load.
+ *
+ * The distance matrix is a single array, so instances are limited to
+ * {@link #MAX_NODES} nodes.
+ */
+public final class VrpInstanceLoader {
+
+    private static final int CACHE_MAGIC = 0x52534943;
+    private static final int CACHE_VERSION = 2;
+    private static final int CACHE_HEADER_BYTES = 2 * Integer.BYTES + 3 * Long.BYTES + 5 * Integer.BYTES + Double.BYTES;
+
+    /**
+     * Distances written to the cache at a time
+     */
+    private static final int CACHE_BLOCK_DISTANCES = 1 << 14;
+
+    /**
+     * Most nodes whose distance matrix fits an array
+     */
+    public static final int MAX_NODES = (int) Math.sqrt(Integer.MAX_VALUE - 8);
+
+    private VrpInstanceLoader() {
+    }
+
+    /**
+     * Loads an instance, from its cache if it is up to date.
+     *
+     * @param vrpFile the instance file.
+     * @return the parsed instance.
+     */
+    public static RideSharingInstance load(Path vrpFile) {
+        try {
+            Path configFile = getConfigFile(vrpFile);
+            Path cacheFile = getCacheFile(vrpFile);
+            long vrpSize = Files.size(vrpFile);
+            long vrpModified = Files.getLastModifiedTime(vrpFile).toMillis();
+            long configModified = Files.getLastModifiedTime(configFile).toMillis();
+
+            if (Files.exists(cacheFile)) {
+                RideSharingInstance cached = readCache(cacheFile, getName(vrpFile), vrpSize, vrpModified, configModified);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+
+            RideSharingInstance instance = parse(vrpFile, configFile);
+            try {
+                writeCache(cacheFile, instance, vrpSize, vrpModified, configModified);
+            } catch (IOException e) {
+                if (AbstractTSGRASP.verbose) {
+                    System.err.println("Instance " + instance.getName() + " not cached: " + e);
+                }
+            }
+            return instance;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Parses an instance file and its properties, ignoring the cache.
+     *
+     * @param vrpFile the instance file.
+     * @param configFile the properties giving the drivers and riders nodes.
+     * @return the parsed instance.
+     */
+    public static RideSharingInstance parse(Path vrpFile, Path configFile) throws IOException {
+        Map<String, String> specification = new HashMap<>();
+        List<int[]> coords = new ArrayList<>();
+
+        String section = null;
+        for (String line : Files.readAllLines(vrpFile)) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+
+            int separator = trimmed.indexOf(':');
+            if (separator >= 0) {
+                specification.put(trimmed.substring(0, separator).trim().toUpperCase(Locale.ROOT), trimmed.substring(separator + 1).trim());
+                section = null;
+            } else if (trimmed.endsWith("_SECTION") || trimmed.equals("EOF")) {
+                section = trimmed;
+            } else if ("NODE_COORD_SECTION".equals(section)) {
+                String[] values = trimmed.split("\\s+");
+                coords.add(new int[]{(int) Math.round(Double.parseDouble(values[1])), (int) Math.round(Double.parseDouble(values[2]))});
+            }
+        }
+
+        String edgeWeightType = specification.getOrDefault("EDGE_WEIGHT_TYPE", "EUC_2D");
+        if (!edgeWeightType.equals("EUC_2D")) {
+            throw new IllegalArgumentException("Unsupported EDGE_WEIGHT_TYPE " + edgeWeightType + " in " + vrpFile);
+        }
+        String dimension = specification.get("DIMENSION");
+        if (dimension != null && Integer.parseInt(dimension) != coords.size()) {
+            throw new IllegalArgumentException("DIMENSION " + dimension + " but " + coords.size() + " nodes in " + vrpFile);
+        }
+
+        int nodes = coords.size();
+        if (nodes > MAX_NODES) {
+            throw new IllegalArgumentException(nodes + " nodes in " + vrpFile + ", at most " + MAX_NODES + " are supported");
+        }
+        int[] xs = new int[nodes];
+        int[] ys = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            xs[i] = coords.get(i)[0];
+            ys[i] = coords.get(i)[1];
+        }
+
+        long[] distanceMatrix = new long[matrixSize(nodes)];
+        for (int origin = 0; origin < nodes; origin++) {
+            int row = origin * nodes;
+            for (int destination = 0; destination < nodes; destination++) {
+                // Rounded euclidean distance, as NodeCoord.getDistanceFrom
+                double dx = (double) xs[origin] - xs[destination];
+                double dy = (double) ys[origin] - ys[destination];
+                distanceMatrix[row + destination] = Math.round(Math.sqrt(dx * dx + dy * dy));
+            }
+        }
+
+        Properties config = new Properties();
+        try (Reader reader = Files.newBufferedReader(configFile)) {
+            config.load(reader);
+        }
+        int[] driversOriginNodes = parseNodes(config, "drivers.origins", -1, nodes);
+        int[] driversDestinationNodes = parseNodes(config, "drivers.destinations", driversOriginNodes.length, nodes);
+        int[] ridersOriginNodes = parseNodes(config, "riders.origins", -1, nodes);
+        int[] ridersDestinationNodes = parseNodes(config, "riders.destinations", ridersOriginNodes.length, nodes);
+
+        return new RideSharingInstance(getName(vrpFile), xs, ys, driversOriginNodes, driversDestinationNodes,
+                ridersOriginNodes, ridersDestinationNodes,
+                Integer.parseInt(getProperty(config, "maxRequests")),
+                Integer.parseInt(getProperty(config, "maxDrivingTime")),
+                Double.parseDouble(getProperty(config, "penalty")),
+                distanceMatrix);
+    }
+
+    /**
+     * Parses a list of nodes such as {@code 0-4,7}.
+     *
+     * @param count the number of nodes expected, a single node being repeated, or -1 for any.
+     */
+    private static int[] parseNodes(Properties config, String key, int count, int nodes) {
+        List<Integer> parsed = new ArrayList<>();
+        for (String part : getProperty(config, key).split(",")) {
+            String[] range = part.trim().split("-");
+            int from = Integer.parseInt(range[0].trim());
+            int to = range.length > 1 ? Integer.parseInt(range[1].trim()) : from;
+            for (int node = from; node <= to; node++) {
+                if (node < 0 || node >= nodes) {
+                    throw new IllegalArgumentException("Node " + node + " of " + key + " out of the " + nodes + " nodes");
+                }
+                parsed.add(node);
+            }
+        }
+
+        if (count >= 0 && parsed.size() == 1) {
+            int[] repeated = new int[count];
+            Arrays.fill(repeated, parsed.get(0));
+            return repeated;
+        }
+        if (count >= 0 && parsed.size() != count) {
+            throw new IllegalArgumentException(key + " has " + parsed.size() + " nodes, expected 1 or " + count);
+        }
+        return parsed.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return the number of cells of the distance matrix of some nodes.
+     * @throws IllegalArgumentException if there are more than {@link #MAX_NODES} nodes.
+     */
+    private static int matrixSize(int nodes) {
+        if (nodes < 0 || nodes > MAX_NODES) {
+            throw new IllegalArgumentException(nodes + " nodes, at most " + MAX_NODES + " are supported");
+        }
+        return Math.toIntExact(Math.multiplyExact((long) nodes, (long) nodes));
+    }
+
+    private static String getProperty(Properties config, String key) {
+        String value = config.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing property " + key);
+        }
+        return value.trim();
+    }
+
+    private static String getName(Path vrpFile) {
+        String fileName = vrpFile.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        return extension > 0 ? fileName.substring(0, extension) : fileName;
+    }
+
+    private static Path getConfigFile(Path vrpFile) {
+        return vrpFile.resolveSibling(getName(vrpFile) + ".properties");
+    }
+
+    private static Path getCacheFile(Path vrpFile) {
+        return vrpFile.toAbsolutePath().getParent().resolveSibling("cache").resolve(getName(vrpFile) + ".bin");
+    }
+
+    /**
+     * Reads a cached instance through a memory mapping of the cache file.
+     *
+     * @return the instance, or null if the cache is stale or not a cache of this format.
+     */
+    private static RideSharingInstance readCache(Path cacheFile, String name, long vrpSize, long vrpModified, long configModified) throws IOException {
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            if (channel.size() < CACHE_HEADER_BYTES) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != CACHE_MAGIC || buffer.getInt() != CACHE_VERSION
+                    || buffer.getLong() != vrpSize || buffer.getLong() != vrpModified || buffer.getLong() != configModified) {
+                return null;
+            }
+
+            int nodes = buffer.getInt();
+            int drivers = buffer.getInt();
+            int riders = buffer.getInt();
+            int maxRequests = buffer.getInt();
+            int maxDrivingTime = buffer.getInt();
+            double penalty = buffer.getDouble();
+            if (nodes < 0 || nodes > MAX_NODES || drivers < 0 || riders < 0
+                    || channel.size() != getCacheSize(nodes, drivers, riders)) {
+                return null;
+            }
+
+            int[] xs = getInts(buffer, nodes);
+            int[] ys = getInts(buffer, nodes);
+            int[] driversOriginNodes = getInts(buffer, drivers);
+            int[] driversDestinationNodes = getInts(buffer, drivers);
+            int[] ridersOriginNodes = getInts(buffer, riders);
+            int[] ridersDestinationNodes = getInts(buffer, riders);
+            long[] distanceMatrix = new long[matrixSize(nodes)];
+            IntBuffer distances = buffer.asIntBuffer();
+            for (int cell = 0; cell < distanceMatrix.length; cell++) {
+                distanceMatrix[cell] = distances.get(cell);
+            }
+
+            return new RideSharingInstance(name, xs, ys, driversOriginNodes, driversDestinationNodes,
+                    ridersOriginNodes, ridersDestinationNodes, maxRequests, maxDrivingTime, penalty, distanceMatrix);
+        }
+    }
+
+    private static int[] getInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    private static long getCacheSize(int nodes, int drivers, int riders) {
+        long coordsAndRoles = Math.multiplyExact((long) Integer.BYTES, 2L * nodes + 2L * drivers + 2L * riders);
+        long distances = Math.multiplyExact((long) Integer.BYTES, Math.multiplyExact((long) nodes, (long) nodes));
+        return Math.addExact(CACHE_HEADER_BYTES + coordsAndRoles, distances);
+    }
+
+    /**
+     * Writes the cache of an instance, the distance matrix by blocks so that the
+     * instance is never copied whole.
+     *
+     * @throws IOException if the cache could not be written, or a distance does not fit an int.
+     */
+    private static void writeCache(Path cacheFile, RideSharingInstance instance, long vrpSize, long vrpModified, long configModified) throws IOException {
+        int nodes = instance.getNodes();
+        int drivers = instance.getDrivers();
+        int riders = instance.getRiders();
+        // The header, coordinates and roles, the distances following by blocks
+        ByteBuffer buffer = ByteBuffer.allocate(CACHE_HEADER_BYTES + Integer.BYTES * (2 * nodes + 2 * drivers + 2 * riders));
+        buffer.putInt(CACHE_MAGIC).putInt(CACHE_VERSION).putLong(vrpSize).putLong(vrpModified).putLong(configModified);
+        buffer.putInt(nodes).putInt(drivers).putInt(riders).putInt(instance.maxRequests).putInt(instance.maxDrivingTime).putDouble(instance.penalty);
+        putInts(buffer, instance.xs);
+        putInts(buffer, instance.ys);
+        putInts(buffer, instance.driversOriginNodes);
+        putInts(buffer, instance.driversDestinationNodes);
+        putInts(buffer, instance.ridersOriginNodes);
+        putInts(buffer, instance.ridersDestinationNodes);
+        buffer.flip();
+
+        // Written aside and moved, so that concurrent loads never map a partial cache
+        Files.createDirectories(cacheFile.getParent());
+        Path tempFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                write(channel, buffer);
+
+                long[] distanceMatrix = instance.distanceMatrix;
+                ByteBuffer block = ByteBuffer.allocate(CACHE_BLOCK_DISTANCES * Integer.BYTES);
+                for (int from = 0; from < distanceMatrix.length; from += CACHE_BLOCK_DISTANCES) {
+                    block.clear();
+                    int to = Math.min(from + CACHE_BLOCK_DISTANCES, distanceMatrix.length);
+                    for (int cell = from; cell < to; cell++) {
+                        if (distanceMatrix[cell] > Integer.MAX_VALUE) {
+                            throw new IOException("Distance " + distanceMatrix[cell] + " does not fit the cache");
+                        }
+                        block.putInt((int) distanceMatrix[cell]);
+                    }
+                    block.flip();
+                    write(channel, block);
+                }
+            }
+            try {
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+    }
+
+}
@@ -0,0 +1,118 @@
+package grasp.problem.ridesharing;
+
+import grasp.framework.AbstractTSGRASP;
+import grasp.framework.AbstractTSGRASP.ConstructiveMethod;
+import grasp.framework.AbstractTSGRASP.LocalSearchMethod;
+import grasp.framework.AbstractTSGRASP.RelinkingMethod;
+import grasp.framework.Solution;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CheckpointTest {
+
+    private static final int ITERATIONS = 30;
+    private static final int INTERRUPTED_ITERATIONS = 12;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void quiet() {
+        AbstractTSGRASP.verbose = false;
+    }
+
+    /**
+     * Records the alpha and the solution each local search starts from, which follow
+     * from the random number generator stream and the alpha distribution
+     */
+    private static final class RecordingTSGRASP extends RideSharingTSGRASP {
+
+        final List<String> trace = new ArrayList<>();
+
+        RecordingTSGRASP(RideSharingEvaluator evaluator, int iterations, Duration maxExecutionTime) {
+            super(0.15, iterations, maxExecutionTime, new RideSharingEvaluator(evaluator), 10);
+            setSeed(7);
+            setPathRelinking(RelinkingMethod.MIXED, 5, 2);
+        }
+
+        @Override
+        public Solution<Integer> localSearch(LocalSearchMethod method) {
+            trace.add(usedAlpha + " " + sol.cost + " " + ((RideSharingSolution) sol).getHash());
+            return super.localSearch(method);
+        }
+
+    }
+
+    @Test
+    void resumedSolvesContinueAsIfUninterrupted() {
+        RideSharingEvaluator evaluator = new RideSharingEvaluator(Instance.A_N32);
+        Path checkpoint = dir.resolve("solve.ckpt");
+        for (ConstructiveMethod constructiveMethod : new ConstructiveMethod[]{ConstructiveMethod.RANDOM_PLUS_GREEDY, ConstructiveMethod.REACTIVE_GRASP}) {
+            for (LocalSearchMethod localSearchMethod : new LocalSearchMethod[]{LocalSearchMethod.BEST_IMPROVING, LocalSearchMethod.TABU_PROBABILISTIC_50_PERCENT}) {
+                String run = constructiveMethod + " " + localSearchMethod;
+
+                RecordingTSGRASP uninterrupted = new RecordingTSGRASP(evaluator, ITERATIONS, Duration.ofMinutes(5));
+                Solution<Integer> bestSol = uninterrupted.solve(constructiveMethod, localSearchMethod, "3");
+
+                RecordingTSGRASP interrupted = new RecordingTSGRASP(evaluator, INTERRUPTED_ITERATIONS, Duration.ofMinutes(5));
+                interrupted.setCheckpointing(checkpoint, Duration.ZERO);
+                Solution<Integer> interruptedBestSol = interrupted.solve(constructiveMethod, localSearchMethod, "3");
+
+                RecordingTSGRASP resumed = new RecordingTSGRASP(evaluator, ITERATIONS, Duration.ofMinutes(5));
+                assertEquals(interruptedBestSol.cost, resumed.readIncumbent(checkpoint).cost, run);
+                Solution<Integer> resumedBestSol = resumed.resume(checkpoint, constructiveMethod, localSearchMethod, "3");
+
+                int split = interrupted.trace.size();
+                assertEquals(uninterrupted.trace.subList(0, split), interrupted.trace, run);
+                assertEquals(uninterrupted.trace.subList(split, uninterrupted.trace.size()), resumed.trace, run);
+                assertEquals(bestSol.cost, resumedBestSol.cost, run);
+                assertEquals(new TreeSet<>(bestSol), new TreeSet<>(resumedBestSol), run);
+            }
+        }
+    }
+
+    @Test
+    void resumedSolvesStopAtWhatIsLeftOfTheirMaxExecutionTime() {
+        RideSharingEvaluator evaluator = new RideSharingEvaluator(Instance.A_N44);
+        Path checkpoint = dir.resolve("solve.ckpt");
+        RecordingTSGRASP interrupted = new RecordingTSGRASP(evaluator, 1, Duration.ofMinutes(5));
+        interrupted.setCheckpointing(checkpoint, Duration.ZERO);
+        interrupted.solve(ConstructiveMethod.STANDARD, LocalSearchMethod.BEST_IMPROVING, "3");
+
+        RecordingTSGRASP resumed = new RecordingTSGRASP(evaluator, Integer.MAX_VALUE, Duration.ofMillis(50));
+        resumed.setTabuWalkBudgets(1_000_000, 1_000_000);
+        long started = System.nanoTime();
+        resumed.resume(checkpoint, ConstructiveMethod.STANDARD, LocalSearchMethod.REACTIVE_TABU_SEARCH, "3");
+
+        assertTrue((System.nanoTime() - started) / 1_000_000 < 50 + 1000);
+    }
+
+    @Test
+    void solvesWarmStartedFromACheckpointStopAtTheirMaxExecutionTime() {
+        RideSharingEvaluator evaluator = new RideSharingEvaluator(Instance.A_N44);
+        Path checkpoint = dir.resolve("solve.ckpt");
+        RecordingTSGRASP interrupted = new RecordingTSGRASP(evaluator, 1, Duration.ofMinutes(5));
+        interrupted.setCheckpointing(checkpoint, Duration.ZERO);
+        Solution<Integer> interruptedBestSol = interrupted.solve(ConstructiveMethod.STANDARD, LocalSearchMethod.BEST_IMPROVING, "3");
+
+        RecordingTSGRASP warmStarted = new RecordingTSGRASP(evaluator, Integer.MAX_VALUE, Duration.ofMillis(50));
+        warmStarted.setTabuWalkBudgets(1_000_000, 1_000_000);
+        warmStarted.setInitialSolution(warmStarted.readIncumbent(checkpoint));
+        long started = System.nanoTime();
+        Solution<Integer> bestSol = warmStarted.solve(ConstructiveMethod.STANDARD, LocalSearchMethod.REACTIVE_TABU_SEARCH, "3");
+
+        assertTrue((System.nanoTime() - started) / 1_000_000 < 50 + 1000);
+        assertTrue(bestSol.cost <= interruptedBestSol.cost);
+    }
+
+}
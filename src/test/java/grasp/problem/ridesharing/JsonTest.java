@@ -0,0 +1,68 @@
+package grasp.problem.ridesharing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonTest {
+
+    @Test
+    void parsesEscapes() {
+        assertEquals("quote \" backslash \\ slash / tab \t newline \n return \r backspace \b feed \f",
+                Json.parse("\"quote \\\" backslash \\\\ slash \\/ tab \\t newline \\n return \\r backspace \\b feed \\f\""));
+        assertEquals("\u00e9\u20ac\u0001", Json.parse("\"\\u00e9\\u20AC\\u0001\""));
+    }
+
+    @Test
+    void quotedStringsParseBack() {
+        String value = "P_N16 \"run\" \\ \t\n\r\u0001\u001f \u00e9";
+        assertEquals(value, Json.parse(Json.quote(value)));
+    }
+
+    @Test
+    void parsesIntegralNumbersAsLongs() {
+        assertEquals(0L, Json.parse("0"));
+        assertEquals(-42L, Json.parse("-42"));
+        assertEquals(Long.MAX_VALUE, Json.parse(Long.toString(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void parsesOtherNumbersAsDoubles() {
+        assertEquals(175.0, Json.parse("175.0"));
+        assertEquals(-0.5, Json.parse("-0.5"));
+        assertEquals(1.5e20, Json.parse("1.5e20"));
+        assertEquals(1.5e20, Json.parse("1.5E+20"));
+        assertEquals(1.25e-7, Json.parse("1.25E-7"));
+        assertEquals(1e3, Json.parse("1e3"));
+    }
+
+    @Test
+    void parsesObjectsArraysAndLiterals() {
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("b", Arrays.asList(1L, Collections.emptyList(), Collections.emptyMap()));
+        expected.put("a", true);
+        expected.put("c", false);
+        expected.put("d", null);
+
+        Object parsed = Json.parse(" { \"b\" : [ 1 , [ ] , { } ] , \"a\" : true , \"c\" : false , \"d\" : null } ");
+
+        assertEquals(expected, parsed);
+        assertEquals(Arrays.asList("b", "a", "c", "d"), Arrays.asList(((Map<?, ?>) parsed).keySet().toArray()));
+        assertNull(((Map<?, ?>) parsed).get("d"));
+    }
+
+    @Test
+    void rejectsInvalidJson() {
+        for (String invalid : new String[]{"", "{", "[1,", "{\"a\" 1}", "\"unterminated", "\"\\u12\"", "tru", "1 2", "-", "1.2.3", "{1:2}"}) {
+            assertThrows(IllegalArgumentException.class, () -> Json.parse(invalid), invalid);
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package grasp.problem.ridesharing;
+
+import java.util.Random;
+
+/**
+ * Instances whose drivers and riders go between random points of a 100 x 100 grid, with
+ * rounded euclidean distances as in the instance files
+ */
+final class RandomInstances {
+
+    private RandomInstances() {
+    }
+
+    static RideSharingInstance create(int drivers, int riders, int maxRequests, int maxDrivingTime, long seed) {
+        Random random = new Random(seed);
+        int nodes = 2 * (drivers + riders);
+        int[] xs = new int[nodes];
+        int[] ys = new int[nodes];
+        for (int node = 0; node < nodes; node++) {
+            xs[node] = random.nextInt(100);
+            ys[node] = random.nextInt(100);
+        }
+        long[] distanceMatrix = new long[nodes * nodes];
+        for (int from = 0; from < nodes; from++) {
+            for (int to = 0; to < nodes; to++) {
+                distanceMatrix[from * nodes + to] = Math.round(Math.hypot(xs[from] - xs[to], ys[from] - ys[to]));
+            }
+        }
+        int[] driversOriginNodes = new int[drivers];
+        int[] driversDestinationNodes = new int[drivers];
+        for (int driver = 0; driver < drivers; driver++) {
+            driversOriginNodes[driver] = 2 * driver;
+            driversDestinationNodes[driver] = 2 * driver + 1;
+        }
+        int[] ridersOriginNodes = new int[riders];
+        int[] ridersDestinationNodes = new int[riders];
+        for (int rider = 0; rider < riders; rider++) {
+            ridersOriginNodes[rider] = 2 * (drivers + rider);
+            ridersDestinationNodes[rider] = 2 * (drivers + rider) + 1;
+        }
+        return new RideSharingInstance("random-" + drivers + "-" + riders, xs, ys, driversOriginNodes, driversDestinationNodes,
+                ridersOriginNodes, ridersDestinationNodes, maxRequests, maxDrivingTime, 100, distanceMatrix);
+    }
+
+}
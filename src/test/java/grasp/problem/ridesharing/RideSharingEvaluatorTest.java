@@ -0,0 +1,75 @@
+package grasp.problem.ridesharing;
+
+import grasp.framework.AbstractTSGRASP;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RideSharingEvaluatorTest {
+
+    private static final int SOLUTIONS = 200;
+
+    @BeforeAll
+    static void quiet() {
+        AbstractTSGRASP.verbose = false;
+    }
+
+    @Test
+    void routeCostsAreTheSameWithAndWithoutTheCache() {
+        RideSharingEvaluator cached = new RideSharingEvaluator(Instance.A_N44);
+        RideSharingEvaluator uncached = new RideSharingEvaluator(cached);
+        uncached.setRouteCostCacheCapacity(0);
+        // A cache evicting at almost every lookup
+        RideSharingEvaluator evicting = new RideSharingEvaluator(cached);
+        evicting.setRouteCostCacheCapacity(2);
+
+        Random random = new Random(0);
+        for (int s = 0; s < SOLUTIONS; s++) {
+            RideSharingSolution sol = randomSolution(cached, random);
+            double cost = uncached.evaluate(sol.copy());
+            assertEquals(cost, cached.evaluate(sol.copy()));
+            assertEquals(cost, evicting.evaluate(sol.copy()));
+
+            int elem = random.nextInt(cached.getDomainSize());
+            double insertionDelta = uncached.getInsertionDelta(elem, sol.copy());
+            assertEquals(insertionDelta, cached.getInsertionDelta(elem, sol.copy()));
+            assertEquals(insertionDelta, evicting.getInsertionDelta(elem, sol.copy()));
+        }
+
+        assertTrue(cached.getRouteCostCacheHits() > 0);
+        assertEquals(0, uncached.getRouteCostCacheHits() + uncached.getRouteCostCacheMisses());
+    }
+
+    @Test
+    void routeCostsAreNotCachedWhenTheirKeysDoNotFitALong() {
+        RideSharingEvaluator evaluator = new RideSharingEvaluator(RandomInstances.create(2, 64, 4, 1000, 0));
+        RideSharingEvaluator narrowEvaluator = new RideSharingEvaluator(RandomInstances.create(2, 8, 4, 1000, 1));
+
+        Random random = new Random(1);
+        for (int s = 0; s < SOLUTIONS; s++) {
+            evaluator.evaluate(randomSolution(evaluator, random));
+        }
+        narrowEvaluator.evaluate(randomSolution(narrowEvaluator, random));
+
+        assertEquals(0, evaluator.getRouteCostCacheHits() + evaluator.getRouteCostCacheMisses());
+        assertTrue(narrowEvaluator.getRouteCostCacheMisses() > 0);
+    }
+
+    /**
+     * @return a solution serving each rider with probability 1/2, by a random driver.
+     */
+    private static RideSharingSolution randomSolution(RideSharingEvaluator evaluator, Random random) {
+        RideSharingSolution sol = evaluator.createEmptySolution();
+        for (int rider = 0; rider < evaluator.riders; rider++) {
+            if (random.nextBoolean()) {
+                sol.assign(rider, random.nextInt(evaluator.drivers));
+            }
+        }
+        return sol;
+    }
+
+}
@@ -0,0 +1,53 @@
+package grasp.problem.ridesharing;
+
+import grasp.framework.AbstractTSGRASP;
+import grasp.framework.AbstractTSGRASP.ConstructiveMethod;
+import grasp.framework.AbstractTSGRASP.LocalSearchMethod;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RideSharingOnlineOptimizerTest {
+
+    private static final Duration MAX_EVENT_TIME = Duration.ofMillis(50);
+
+    /**
+     * Time a re-optimisation may take beyond the max event time, to build its instance
+     * and finish its current ALNS iteration. A search ignoring the deadline runs its
+     * whole ALNS budget, over 100ms on A_N44.
+     */
+    private static final long EVENT_SLACK_MS = 100;
+
+    @BeforeAll
+    static void quiet() {
+        AbstractTSGRASP.verbose = false;
+    }
+
+    @Test
+    void warmStartedReoptimisationsStopAtTheMaxEventTime() {
+        RideSharingOnlineOptimizer optimizer = new RideSharingOnlineOptimizer(VrpInstanceLoader.load(Paths.get(Instance.A_N44.getFilename())));
+        optimizer.setSearch(0.15, Integer.MAX_VALUE, MAX_EVENT_TIME, 10);
+        optimizer.setMethods(ConstructiveMethod.STANDARD, LocalSearchMethod.ALNS);
+        optimizer.reoptimize();
+
+        Random random = new Random(0);
+        for (int event = 0; event < 10; event++) {
+            RideSharingEvent rideSharingEvent = event % 2 == 0
+                    ? RideSharingEvent.addRider("N" + event, random.nextInt(100), random.nextInt(100), random.nextInt(100), random.nextInt(100))
+                    : RideSharingEvent.updateDriverPosition("D" + event % 5, random.nextInt(100), random.nextInt(100));
+
+            long started = System.nanoTime();
+            double cost = optimizer.accept(rideSharingEvent);
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+            assertTrue(elapsedMs < MAX_EVENT_TIME.toMillis() + EVENT_SLACK_MS, "Event " + rideSharingEvent + " took " + elapsedMs + "ms");
+            assertTrue(Double.isFinite(cost));
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package grasp.problem.ridesharing;
+
+import grasp.framework.AbstractTSGRASP;
+import grasp.framework.AbstractTSGRASP.ConstructiveMethod;
+import grasp.framework.AbstractTSGRASP.LocalSearchMethod;
+import grasp.framework.Solution;
+import grasp.problem.ridesharing.RideSharingEvaluator.ConstraintMode;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RideSharingTSGRASPTest {
+
+    /**
+     * Time a solve may take beyond its max execution time
+     */
+    private static final long DEADLINE_SLACK_MS = 1000;
+
+    /**
+     * Walk budget long enough for the walks to be stopped by the deadline only
+     */
+    private static final int LONG_WALK_MOVES = 1_000_000;
+
+    @BeforeAll
+    static void quiet() {
+        AbstractTSGRASP.verbose = false;
+    }
+
+    @Test
+    void solveStopsAtItsMaxExecutionTime() {
+        RideSharingEvaluator evaluator = new RideSharingEvaluator(Instance.A_N44);
+        RideSharingTSGRASP grasp = new RideSharingTSGRASP(0.15, Integer.MAX_VALUE, Duration.ofMillis(50), evaluator, 10);
+        grasp.setTabuWalkBudgets(LONG_WALK_MOVES, LONG_WALK_MOVES);
+
+        long started = System.nanoTime();
+        grasp.solve(ConstructiveMethod.STANDARD, LocalSearchMethod.REACTIVE_TABU_SEARCH, "3");
+
+        assertTrue(elapsedMs(started) < 50 + DEADLINE_SLACK_MS);
+    }
+
+    @Test
+    void warmStartedSolveStopsAtItsMaxExecutionTime() {
+        RideSharingEvaluator evaluator = new RideSharingEvaluator(Instance.A_N44);
+        RideSharingTSGRASP first = new RideSharingTSGRASP(0.15, 1, Duration.ofMinutes(1), evaluator, 10);
+        Solution<Integer> initialSol = first.solve(ConstructiveMethod.STANDARD, LocalSearchMethod.BEST_IMPROVING, "3");
+
+        RideSharingTSGRASP grasp = new RideSharingTSGRASP(0.15, Integer.MAX_VALUE, Duration.ofMillis(50), evaluator, 10);
+        grasp.setTabuWalkBudgets(LONG_WALK_MOVES, LONG_WALK_MOVES);
+        grasp.setInitialSolution(initialSol);
+        long started = System.nanoTime();
+        Solution<Integer> bestSol = grasp.solve(ConstructiveMethod.STANDARD, LocalSearchMethod.REACTIVE_TABU_SEARCH, "3");
+
+        assertTrue(elapsedMs(started) < 50 + DEADLINE_SLACK_MS);
+        assertTrue(bestSol.cost <= initialSol.cost);
+        assertEquals(evaluator.evaluate(bestSol), bestSol.cost);
+    }
+
+    @Test
+    void parallelScoringFollowsConstraintsSetAfterwards() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Large enough for the neighbourhoods to be scored in parallel, with binding driving times
+            RideSharingInstance instance = RandomInstances.create(20, 80, 4, 150, 0);
+            for (ConstraintMode constraintMode : new ConstraintMode[]{ConstraintMode.REJECT, ConstraintMode.PENALISE}) {
+                RideSharingEvaluator serialEvaluator = new RideSharingEvaluator(instance);
+                serialEvaluator.setConstraints(constraintMode, 50);
+                RideSharingTSGRASP serial = new RideSharingTSGRASP(0.15, 5, Duration.ofMinutes(1), serialEvaluator, 10);
+                serial.setSeed(0);
+                Solution<Integer> serialSol = serial.solve(ConstructiveMethod.STANDARD, LocalSearchMethod.TABU_SEARCH, "3");
+
+                RideSharingEvaluator parallelEvaluator = new RideSharingEvaluator(instance);
+                RideSharingTSGRASP parallel = new RideSharingTSGRASP(0.15, 5, Duration.ofMinutes(1), parallelEvaluator, 10);
+                parallel.setSeed(0);
+                parallel.setNeighbourhoodParallelism(4, pool);
+                parallelEvaluator.setConstraints(constraintMode, 50);
+                Solution<Integer> parallelSol = parallel.solve(ConstructiveMethod.STANDARD, LocalSearchMethod.TABU_SEARCH, "3");
+
+                assertEquals(serialSol.cost, parallelSol.cost, constraintMode.name());
+                assertEquals(new TreeSet<>(serialSol), new TreeSet<>(parallelSol), constraintMode.name());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelScoringFollowsRouteCostCacheCapacitiesSetAfterwards() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Large enough for the neighbourhoods to be scored in parallel, with binding driving
+            // times and route keys fitting a long
+            RideSharingEvaluator evaluator = new RideSharingEvaluator(RandomInstances.create(30, 57, 4, 150, 0));
+            RideSharingTSGRASP grasp = new RideSharingTSGRASP(0.15, 2, Duration.ofMinutes(1), evaluator, 10);
+            grasp.setNeighbourhoodParallelism(4, pool);
+            evaluator.setRouteCostCacheCapacity(0);
+            grasp.solve(ConstructiveMethod.STANDARD, LocalSearchMethod.BEST_IMPROVING, "3");
+
+            assertEquals(0, grasp.getRouteCostCacheHits() + grasp.getRouteCostCacheMisses());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static long elapsedMs(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+
+}
@@ -0,0 +1,156 @@
+package grasp.problem.ridesharing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteCostCacheTest {
+
+    /**
+     * A cache of 4 entries, whose table has 8 slots
+     */
+    private static final int CAPACITY = 4;
+    private static final int SLOT_MASK = 2 * CAPACITY - 1;
+
+    @Test
+    void cachesCostsUpToItsCapacity() {
+        RouteCostCache cache = new RouteCostCache(CAPACITY);
+        for (long key = 0; key < CAPACITY; key++) {
+            assertEquals(-1, cache.get(key));
+            cache.put(key, 10 * key);
+        }
+
+        assertEquals(CAPACITY, cache.size());
+        for (long key = 0; key < CAPACITY; key++) {
+            assertEquals(10 * key, cache.get(key));
+        }
+        assertEquals(CAPACITY, cache.getHits());
+        assertEquals(CAPACITY, cache.getMisses());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    void evictsTheEntriesNotUsedSinceTheLastPassOfTheHand() {
+        RouteCostCache cache = new RouteCostCache(CAPACITY);
+        for (long key = 0; key < CAPACITY; key++) {
+            cache.put(key, 10 * key);
+        }
+        // Every entry but key 2 is referenced, so the hand spares them once
+        cache.get(0);
+        cache.get(1);
+        cache.get(3);
+
+        cache.put(4, 40);
+
+        assertEquals(CAPACITY, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(-1, cache.get(2));
+        assertEquals(0, cache.get(0));
+        assertEquals(10, cache.get(1));
+        assertEquals(30, cache.get(3));
+        assertEquals(40, cache.get(4));
+    }
+
+    @Test
+    void evictsReferencedEntriesOnTheNextPassOfTheHand() {
+        RouteCostCache cache = new RouteCostCache(CAPACITY);
+        for (long key = 0; key < CAPACITY; key++) {
+            cache.put(key, 10 * key);
+            cache.get(key);
+        }
+
+        // All referenced: the hand clears them all, then evicts the first one it meets
+        cache.put(4, 40);
+
+        assertEquals(CAPACITY, cache.size());
+        assertEquals(1, cache.getEvictions());
+        int cached = 0;
+        for (long key = 0; key < CAPACITY; key++) {
+            cached += cache.get(key) >= 0 ? 1 : 0;
+        }
+        assertEquals(CAPACITY - 1, cached);
+        assertEquals(40, cache.get(4));
+    }
+
+    @Test
+    void keepsCollidingKeysReachableAfterAnEviction() {
+        long[] colliding = collidingKeys(3);
+        long other = 0;
+        while ((RouteCostCache.hash(other) & SLOT_MASK) == (RouteCostCache.hash(colliding[0]) & SLOT_MASK)) {
+            other++;
+        }
+
+        RouteCostCache cache = new RouteCostCache(CAPACITY);
+        for (long key : colliding) {
+            cache.put(key, key + 1);
+        }
+        cache.put(other, other + 1);
+        // Only the first colliding key, at the home slot of the others, may be evicted
+        cache.get(colliding[1]);
+        cache.get(colliding[2]);
+        cache.get(other);
+
+        cache.put(1_000_000, 0);
+
+        assertEquals(1, cache.getEvictions());
+        assertEquals(-1, cache.get(colliding[0]));
+        assertEquals(colliding[1] + 1, cache.get(colliding[1]));
+        assertEquals(colliding[2] + 1, cache.get(colliding[2]));
+        assertEquals(other + 1, cache.get(other));
+    }
+
+    @Test
+    void keepsEveryCachedKeyReachableUnderChurn() {
+        RouteCostCache cache = new RouteCostCache(CAPACITY);
+        Map<Long, Long> costs = new HashMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 10_000; i++) {
+            long key = random.nextInt(64);
+            long cost = cache.get(key);
+            if (cost < 0) {
+                costs.put(key, 3 * key);
+                cache.put(key, 3 * key);
+            } else {
+                assertEquals(costs.get(key), cost);
+            }
+
+            int reachable = 0;
+            for (long cached = 0; cached < 64; cached++) {
+                reachable += cache.get(cached) >= 0 ? 1 : 0;
+            }
+            assertEquals(cache.size(), reachable);
+            assertTrue(cache.size() <= CAPACITY);
+        }
+        assertTrue(cache.getEvictions() > 0);
+    }
+
+    @Test
+    void clearDropsTheEntries() {
+        RouteCostCache cache = new RouteCostCache(CAPACITY);
+        cache.put(1, 10);
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(-1, cache.get(1));
+    }
+
+    /**
+     * @return keys sharing the same home slot in a table of 2 * {@link #CAPACITY} slots.
+     */
+    private static long[] collidingKeys(int count) {
+        long[] keys = new long[count];
+        int found = 0;
+        for (long key = 0; found < count; key++) {
+            if (found == 0 || (RouteCostCache.hash(key) & SLOT_MASK) == (RouteCostCache.hash(keys[0]) & SLOT_MASK)) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+
+}
@@ -0,0 +1,162 @@
+package grasp.problem.ridesharing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteSequencerTest {
+
+    private static final int ROUTES = 200;
+
+    /**
+     * Random routes: node 0 is the driver origin, node 1 its destination, then the
+     * pickups and dropoffs of the riders
+     */
+    private static final int ORIGIN = 0;
+    private static final int DESTINATION = 1;
+
+    @Test
+    void exactRoutesAreTheShortestWithPickupsBeforeDropoffs() {
+        Random random = new Random(0);
+        for (int route = 0; route < ROUTES; route++) {
+            int riders = 1 + random.nextInt(4);
+            RandomRoute randomRoute = new RandomRoute(riders, random);
+            RouteSequencer sequencer = new RouteSequencer(randomRoute.distanceMatrix, randomRoute.nodes, riders);
+
+            assertEquals(randomRoute.shortestLength(),
+                    sequencer.sequence(ORIGIN, DESTINATION, randomRoute.pickupNodes, randomRoute.dropoffNodes, riders));
+        }
+    }
+
+    @Test
+    void exactRoutesDoNotDropOffBeforePickingUp() {
+        // The dropoff is at the driver origin and the pickup at its destination, so the
+        // shortest route ignoring the order would be 0
+        long[] distanceMatrix = {
+                0, 10, 10, 0,
+                10, 0, 0, 10,
+                10, 0, 0, 10,
+                0, 10, 10, 0
+        };
+        RouteSequencer sequencer = new RouteSequencer(distanceMatrix, 4, 1);
+
+        assertEquals(30, sequencer.sequence(ORIGIN, DESTINATION, new int[]{2}, new int[]{3}, 1));
+    }
+
+    @Test
+    void heuristicRoutesPickUpBeforeDroppingOff() {
+        Random random = new Random(1);
+        for (int route = 0; route < ROUTES; route++) {
+            int riders = 1 + random.nextInt(12);
+            RandomRoute randomRoute = new RandomRoute(riders, random);
+            RouteSequencer sequencer = new RouteSequencer(randomRoute.distanceMatrix, randomRoute.nodes, riders);
+
+            long length = sequencer.sequenceHeuristically(ORIGIN, DESTINATION, randomRoute.pickupNodes, randomRoute.dropoffNodes, riders);
+
+            int[] stops = sequencer.getHeuristicRoute();
+            assertEquals(2 * riders, stops.length);
+            int[] positions = new int[2 * riders];
+            for (int position = 0; position < stops.length; position++) {
+                positions[stops[position]] = position;
+            }
+            for (int rider = 0; rider < riders; rider++) {
+                assertTrue(positions[rider] < positions[riders + rider], "Rider " + rider + " dropped off before being picked up");
+            }
+            assertEquals(randomRoute.length(stops), length);
+        }
+    }
+
+    @Test
+    void heuristicRoutesAreNeverShorterThanTheExactOnes() {
+        Random random = new Random(2);
+        for (int route = 0; route < ROUTES; route++) {
+            int riders = 1 + random.nextInt(RouteSequencer.EXACT_MAX_RIDERS);
+            RandomRoute randomRoute = new RandomRoute(riders, random);
+            RouteSequencer sequencer = new RouteSequencer(randomRoute.distanceMatrix, randomRoute.nodes, riders);
+
+            long exact = sequencer.sequence(ORIGIN, DESTINATION, randomRoute.pickupNodes, randomRoute.dropoffNodes, riders);
+            long heuristic = sequencer.sequenceHeuristically(ORIGIN, DESTINATION, randomRoute.pickupNodes, randomRoute.dropoffNodes, riders);
+
+            assertTrue(heuristic >= exact, "Heuristic route of " + heuristic + " shorter than the exact one of " + exact);
+        }
+    }
+
+    /**
+     * A driver and riders at random points of a 100 x 100 grid, with rounded euclidean
+     * distances as in the instance files
+     */
+    private static final class RandomRoute {
+
+        final int riders;
+        final int nodes;
+        final long[] distanceMatrix;
+        final int[] pickupNodes;
+        final int[] dropoffNodes;
+
+        RandomRoute(int riders, Random random) {
+            this.riders = riders;
+            this.nodes = 2 + 2 * riders;
+            int[] xs = new int[nodes];
+            int[] ys = new int[nodes];
+            for (int node = 0; node < nodes; node++) {
+                xs[node] = random.nextInt(100);
+                ys[node] = random.nextInt(100);
+            }
+            this.distanceMatrix = new long[nodes * nodes];
+            for (int from = 0; from < nodes; from++) {
+                for (int to = 0; to < nodes; to++) {
+                    distanceMatrix[from * nodes + to] = Math.round(Math.hypot(xs[from] - xs[to], ys[from] - ys[to]));
+                }
+            }
+            this.pickupNodes = new int[riders];
+            this.dropoffNodes = new int[riders];
+            for (int rider = 0; rider < riders; rider++) {
+                pickupNodes[rider] = 2 + rider;
+                dropoffNodes[rider] = 2 + riders + rider;
+            }
+        }
+
+        /**
+         * @return the length of a route given as stops: rider r for its pickup and riders + r for its dropoff.
+         */
+        long length(int[] stops) {
+            long length = 0;
+            int previous = ORIGIN;
+            for (int stop : stops) {
+                int node = stop < riders ? pickupNodes[stop] : dropoffNodes[stop - riders];
+                length += distanceMatrix[previous * nodes + node];
+                previous = node;
+            }
+            return length + distanceMatrix[previous * nodes + DESTINATION];
+        }
+
+        /**
+         * @return the length of the shortest route picking up every rider before dropping it off, by enumeration.
+         */
+        long shortestLength() {
+            return shortestLength(new int[2 * riders], 0, new boolean[2 * riders]);
+        }
+
+        private long shortestLength(int[] stops, int visited, boolean[] isVisited) {
+            if (visited == stops.length) {
+                return length(stops);
+            }
+            long shortest = Long.MAX_VALUE;
+            for (int stop = 0; stop < stops.length; stop++) {
+                if (isVisited[stop] || (stop >= riders && !isVisited[stop - riders])) {
+                    continue;
+                }
+                stops[visited] = stop;
+                isVisited[stop] = true;
+                shortest = Math.min(shortest, shortestLength(stops, visited + 1, isVisited));
+                isVisited[stop] = false;
+            }
+            return shortest;
+        }
+
+    }
+
+}
@@ -0,0 +1,112 @@
+package grasp.problem.ridesharing;
+
+import grasp.framework.AbstractTSGRASP.ConstructiveMethod;
+import grasp.framework.AbstractTSGRASP.LocalSearchMethod;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RunResultTest {
+
+    private static final List<String> CSV_HEADER = Arrays.asList(RunResult.CSV_HEADER.split(","));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void jsonRoundTripKeepsEveryValue() {
+        for (RunResult result : results()) {
+            assertSameResult(result, RunResult.fromJson(result.toJson()));
+        }
+    }
+
+    @Test
+    void csvRoundTripKeepsEveryValue() {
+        for (RunResult result : results()) {
+            assertSameResult(result, RunResult.fromCsv(result.toCsvRow(), CSV_HEADER));
+        }
+    }
+
+    @Test
+    void csvAndJsonRoundTripsGiveTheSameResult() {
+        for (RunResult result : results()) {
+            assertEquals(RunResult.fromJson(result.toJson()).toJson(), RunResult.fromCsv(result.toCsvRow(), CSV_HEADER).toJson());
+        }
+    }
+
+    @Test
+    void csvFilesRoundTripKeepsEveryValue() throws IOException {
+        Path file = dir.resolve("results.csv");
+        StringBuilder csv = new StringBuilder(RunResult.CSV_HEADER).append('\n');
+        for (RunResult result : results()) {
+            csv.append(result.toCsvRow()).append('\n');
+        }
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<RunResult> read = ResultReader.readCsv(file);
+
+        assertEquals(results().size(), read.size());
+        for (int i = 0; i < read.size(); i++) {
+            assertSameResult(results().get(i), read.get(i));
+        }
+    }
+
+    @Test
+    void csvRowsWithoutTheMetricsColumnCanBeRead() {
+        List<String> header = CSV_HEADER.subList(0, CSV_HEADER.size() - 1);
+        RunResult result = RunResult.fromCsv("P_N16,STANDARD,TABU_SEARCH,3,175.0,3,69,0 1|2|", header);
+
+        assertEquals(Arrays.asList(Arrays.asList(0, 1), Collections.singletonList(2), Collections.emptyList()), result.getRoutes());
+        assertEquals(Collections.emptyMap(), result.getMetrics());
+    }
+
+    @Test
+    void invalidResultsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RunResult.fromJson("{\"instance\":\"P_N16\"}"));
+        assertThrows(IllegalArgumentException.class, () -> RunResult.fromCsv("P_N16,STANDARD", CSV_HEADER));
+        assertThrows(IllegalArgumentException.class, () -> RunResult.fromCsv("\"P_N16,STANDARD,TABU_SEARCH,3,175.0,3,69,0 1|2|,", CSV_HEADER));
+    }
+
+    private static List<RunResult> results() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("iterations", 100L);
+        metrics.put("accepted_moves", 12_345_678_901L);
+        return Arrays.asList(
+                new RunResult("P_N16", ConstructiveMethod.STANDARD, LocalSearchMethod.TABU_SEARCH, 3,
+                        175.0, 69, Arrays.asList(Arrays.asList(0, 1, 4), Collections.emptyList(), Arrays.asList(2, 3)), metrics),
+                // Costs not rounded to a tenth, e.g. penalised violations
+                new RunResult("A_N44", ConstructiveMethod.REACTIVE_GRASP, LocalSearchMethod.ALNS, RunResult.UNKNOWN_SEED,
+                        1756.0 + 1.0 / 3, 0, Collections.singletonList(Collections.singletonList(7)), Collections.emptyMap()),
+                new RunResult("A_N32", ConstructiveMethod.RANDOM_PLUS_GREEDY, LocalSearchMethod.BEST_IMPROVING, Long.MAX_VALUE,
+                        1.25e-7, Long.MAX_VALUE, Collections.singletonList(Collections.emptyList()), metrics),
+                new RunResult("A_N32", ConstructiveMethod.STANDARD, LocalSearchMethod.FIRST_IMPROVING, 0,
+                        1.5e20, 1, Arrays.asList(Collections.emptyList(), Collections.emptyList()), metrics),
+                // Instance names quoted in CSV rows
+                new RunResult("A_N44, \"restricted\"\nk6", ConstructiveMethod.STANDARD, LocalSearchMethod.TABU_SEARCH, 1,
+                        1801.0, 2, Collections.singletonList(Arrays.asList(3, 4)), metrics));
+    }
+
+    private static void assertSameResult(RunResult expected, RunResult actual) {
+        assertEquals(expected.getInstance(), actual.getInstance());
+        assertEquals(expected.getConstructiveMethod(), actual.getConstructiveMethod());
+        assertEquals(expected.getLocalSearchMethod(), actual.getLocalSearchMethod());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getCost(), actual.getCost());
+        assertEquals(expected.getTimeMs(), actual.getTimeMs());
+        assertEquals(expected.getRoutes(), actual.getRoutes());
+        assertEquals(expected.getMetrics(), actual.getMetrics());
+    }
+
+}
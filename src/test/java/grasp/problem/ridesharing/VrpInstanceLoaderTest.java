@@ -0,0 +1,77 @@
+package grasp.problem.ridesharing;
+
+import grasp.framework.AbstractTSGRASP;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VrpInstanceLoaderTest {
+
+    private static final String INSTANCE = "P-n16-k8";
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void quiet() {
+        AbstractTSGRASP.verbose = false;
+    }
+
+    @Test
+    void cachedInstancesAreTheParsedInstances() throws IOException {
+        Path vrpFile = copyInstance();
+        RideSharingInstance parsed = VrpInstanceLoader.parse(vrpFile, vrpFile.resolveSibling(INSTANCE + ".properties"));
+
+        VrpInstanceLoader.load(vrpFile);
+        Path cacheFile = dir.resolve("cache").resolve(INSTANCE + ".bin");
+        assertTrue(Files.exists(cacheFile));
+        RideSharingInstance cached = VrpInstanceLoader.load(vrpFile);
+
+        assertSameInstance(parsed, cached);
+        // Distances are cached as ints
+        assertTrue(Files.size(cacheFile) < (long) Long.BYTES * parsed.distanceMatrix.length);
+    }
+
+    @Test
+    void instancesAreLoadedWhenTheirCacheCannotBeWritten() throws IOException {
+        Path vrpFile = copyInstance();
+        // A file where the cache directory would be created
+        Files.createFile(dir.resolve("cache"));
+
+        RideSharingInstance loaded = VrpInstanceLoader.load(vrpFile);
+
+        assertSameInstance(VrpInstanceLoader.parse(vrpFile, vrpFile.resolveSibling(INSTANCE + ".properties")), loaded);
+    }
+
+    private Path copyInstance() throws IOException {
+        Path in = Files.createDirectories(dir.resolve("in"));
+        for (String extension : new String[]{".vrp", ".properties"}) {
+            Files.copy(Paths.get("instances", "in", INSTANCE + extension), in.resolve(INSTANCE + extension));
+        }
+        return in.resolve(INSTANCE + ".vrp");
+    }
+
+    private static void assertSameInstance(RideSharingInstance expected, RideSharingInstance actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertArrayEquals(expected.xs, actual.xs);
+        assertArrayEquals(expected.ys, actual.ys);
+        assertArrayEquals(expected.driversOriginNodes, actual.driversOriginNodes);
+        assertArrayEquals(expected.driversDestinationNodes, actual.driversDestinationNodes);
+        assertArrayEquals(expected.ridersOriginNodes, actual.ridersOriginNodes);
+        assertArrayEquals(expected.ridersDestinationNodes, actual.ridersDestinationNodes);
+        assertEquals(expected.maxRequests, actual.maxRequests);
+        assertEquals(expected.maxDrivingTime, actual.maxDrivingTime);
+        assertEquals(expected.penalty, actual.penalty);
+        assertArrayEquals(expected.distanceMatrix, actual.distanceMatrix);
+    }
+
+}